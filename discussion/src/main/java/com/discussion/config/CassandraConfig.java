@@ -0,0 +1,24 @@
+package com.discussion.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.cassandra.SessionFactory;
+import org.springframework.data.cassandra.core.cql.session.init.ResourceKeyspacePopulator;
+import org.springframework.data.cassandra.core.cql.session.init.SessionFactoryInitializer;
+
+@Configuration
+public class CassandraConfig {
+
+    /**
+     * Таблицы, которые schema-action не создаёт по сущностям (столбцы counter).
+     * Скрипт идемпотентен и выполняется при каждом запуске.
+     */
+    @Bean
+    public SessionFactoryInitializer cassandraSchemaInitializer(SessionFactory sessionFactory) {
+        SessionFactoryInitializer initializer = new SessionFactoryInitializer();
+        initializer.setSessionFactory(sessionFactory);
+        initializer.setKeyspacePopulator(new ResourceKeyspacePopulator(new ClassPathResource("cql/schema.cql")));
+        return initializer;
+    }
+}
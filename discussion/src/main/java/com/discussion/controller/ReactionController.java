@@ -1,5 +1,7 @@
 package com.discussion.controller;
 
+import com.discussion.dto.ReactionCountDTO;
+import com.discussion.dto.ReactionPageDTO;
 import com.discussion.dto.ReactionRequestDTO;
 import com.discussion.dto.ReactionResponseDTO;
 import com.discussion.service.ReactionService;
@@ -10,7 +12,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("api/v1.0/reactions")
@@ -20,59 +23,72 @@ public class ReactionController {
 
     private final ReactionService reactionService;
 
-    @GetMapping
+    /**
+     * Без limit - первая страница по max-page-size записей, а не вся таблица.
+     */
+    @GetMapping(params = "!articleId")
     @ResponseStatus(HttpStatus.OK)
-    public List<ReactionResponseDTO> getAll() {
-        List<ReactionResponseDTO> responseDTO = reactionService.getReactions();
-        log.error("Host: {}, method: {}, request: {}, response: {}", 24130, "getAll", null, responseDTO);
-        return responseDTO;
+    public CompletableFuture<ReactionPageDTO> getPage(@RequestParam(required = false) Integer limit,
+                                                      @RequestParam(required = false) String pageToken) {
+        try {
+            return orStatus(reactionService.getReactionsPage(limit, pageToken), HttpStatus.BAD_REQUEST);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
-    @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public ReactionResponseDTO create(@RequestBody @Valid ReactionRequestDTO reactionRequestTo) {
+    @GetMapping(params = "articleId")
+    @ResponseStatus(HttpStatus.OK)
+    public CompletableFuture<ReactionPageDTO> getByArticle(@RequestParam Long articleId,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) String pageToken) {
         try {
-            ReactionResponseDTO responseDTO = reactionService.create(reactionRequestTo);
-            log.error("Host: {}, method: {}, request: {}, response: {}", 24130, "create", reactionRequestTo, responseDTO);
-            return responseDTO;
-        } catch (Exception e) {
+            return orStatus(reactionService.getReactionsByArticle(articleId, limit, pageToken), HttpStatus.BAD_REQUEST);
+        } catch (IllegalArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
 
+    @GetMapping("/count")
+    @ResponseStatus(HttpStatus.OK)
+    public CompletableFuture<ReactionCountDTO> count(@RequestParam Long articleId) {
+        return orStatus(reactionService.countByArticle(articleId), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<ReactionResponseDTO> create(@RequestBody @Valid ReactionRequestDTO reactionRequestTo) {
+        return orStatus(reactionService.create(reactionRequestTo), HttpStatus.BAD_REQUEST)
+                .whenComplete((responseDTO, ex) -> log.error("Host: {}, method: {}, request: {}, response: {}", 24130, "create", reactionRequestTo, responseDTO));
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public ReactionResponseDTO delete(@PathVariable Long id) {
-        try {
-            ReactionResponseDTO responseDTO = reactionService.deleteReaction(id);
-            log.error("Host: {}, method: {}, request: {}, response: {}", 24130, "delete", id, responseDTO);
-            return responseDTO;
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
-        }
+    public CompletableFuture<ReactionResponseDTO> delete(@PathVariable Long id) {
+        return orStatus(reactionService.deleteReaction(id), HttpStatus.NOT_FOUND)
+                .whenComplete((responseDTO, ex) -> log.error("Host: {}, method: {}, request: {}, response: {}", 24130, "delete", id, responseDTO));
     }
 
     @PutMapping
     @ResponseStatus(HttpStatus.OK)
-    public ReactionResponseDTO update(@RequestBody @Valid ReactionRequestDTO reactionRequestTo) {
-        try {
-            ReactionResponseDTO responseDTO = reactionService.updateReaction(reactionRequestTo);
-            log.error("Host: {}, method: {}, request: {}, response: {}", 24130, "update", reactionRequestTo, responseDTO);
-            return responseDTO;
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
-        }
+    public CompletableFuture<ReactionResponseDTO> update(@RequestBody @Valid ReactionRequestDTO reactionRequestTo) {
+        return orStatus(reactionService.updateReaction(reactionRequestTo), HttpStatus.BAD_REQUEST)
+                .whenComplete((responseDTO, ex) -> log.error("Host: {}, method: {}, request: {}, response: {}", 24130, "update", reactionRequestTo, responseDTO));
     }
 
     @GetMapping("/{id}")
-    public ReactionResponseDTO read(@PathVariable Long id) {
-        try {
-            ReactionResponseDTO responseDTO = reactionService.get(id);
-            log.error("Host: {}, method: {}, request: {}, response: {}", 24130, "update", id, responseDTO);
-            return responseDTO;
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
-        }
+    public CompletableFuture<ReactionResponseDTO> read(@PathVariable Long id) {
+        return orStatus(reactionService.get(id), HttpStatus.NOT_FOUND)
+                .whenComplete((responseDTO, ex) -> log.error("Host: {}, method: {}, request: {}, response: {}", 24130, "read", id, responseDTO));
     }
 
+    /**
+     * Любая ошибка асинхронной операции превращается в ответ с заданным кодом.
+     */
+    private static <T> CompletableFuture<T> orStatus(CompletableFuture<T> future, HttpStatus status) {
+        return future.exceptionally(ex -> {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            throw new ResponseStatusException(status, cause.getMessage());
+        });
+    }
 }
@@ -0,0 +1,15 @@
+package com.discussion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReactionCountDTO {
+    private Long articleId;
+    private Long count;
+}
@@ -1,14 +1,24 @@
 package com.discussion.dto;
 
 import com.discussion.entities.Reaction;
+import com.publisher.kafka.ReactionMessage;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
 
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface ReactionMapper {
 
     Reaction toEntity(ReactionRequestDTO dto);
 
     ReactionResponseDTO toResponseDto(Reaction entity);
 
+    @Mapping(target = "requestMethod", source = "method")
+    ReactionRequestDTO toRequestDto(ReactionMessage message);
+
+    ReactionMessage toMessage(ReactionResponseDTO dto);
+
+    ReactionResponseDTO toResponseDto(ReactionMessage message);
+
 }
@@ -0,0 +1,17 @@
+package com.discussion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReactionPageDTO {
+    private List<ReactionResponseDTO> items;
+    private String nextPageToken;
+}
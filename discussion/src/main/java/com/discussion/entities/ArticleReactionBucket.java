@@ -0,0 +1,25 @@
+package com.discussion.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.cassandra.core.cql.Ordering;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+/**
+ * Список непустых бакетов reactions_by_article для статьи.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(value = "reaction_buckets_by_article")
+public class ArticleReactionBucket {
+    @PrimaryKeyColumn(name = "articleid", ordinal = 0, type = PrimaryKeyType.PARTITIONED)
+    private Long articleId;
+    @PrimaryKeyColumn(name = "bucket", ordinal = 1, type = PrimaryKeyType.CLUSTERED, ordering = Ordering.ASCENDING)
+    private Integer bucket;
+}
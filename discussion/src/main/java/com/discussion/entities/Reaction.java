@@ -18,5 +18,7 @@ public class Reaction {
     private Long articleId;
     private String content;
     private ReactionState state = ReactionState.PENDING;
+    /** Timestamp последней записи строки в микросекундах, см. ReactionDao. */
+    private Long version;
 }
 
@@ -0,0 +1,30 @@
+package com.discussion.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.cassandra.core.cql.Ordering;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+/**
+ * Копия tbl_reaction для чтения реакций одной статьи. Партиция - статья и временной бакет
+ * (сутки по времени из id), внутри партиции строки упорядочены по id, то есть по времени создания.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(value = "reactions_by_article")
+public class ReactionByArticle {
+    @PrimaryKeyColumn(name = "articleid", ordinal = 0, type = PrimaryKeyType.PARTITIONED)
+    private Long articleId;
+    @PrimaryKeyColumn(name = "bucket", ordinal = 1, type = PrimaryKeyType.PARTITIONED)
+    private Integer bucket;
+    @PrimaryKeyColumn(name = "id", ordinal = 2, type = PrimaryKeyType.CLUSTERED, ordering = Ordering.ASCENDING)
+    private Long id;
+    private String content;
+    private ReactionState state;
+}
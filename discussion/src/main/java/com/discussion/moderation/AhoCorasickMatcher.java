@@ -0,0 +1,157 @@
+package com.discussion.moderation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Автомат Ахо-Корасик для поиска любого из стоп-слов за один проход по тексту без учёта регистра.
+ * После построения автомат неизменяем и хранится в плоских массивах: переходы состояния s -
+ * отсортированный отрезок [edgeStart[s], edgeStart[s + 1]) в edgeChars/edgeTargets,
+ * поэтому поиск не создаёт объектов и безопасен из нескольких потоков.
+ */
+public final class AhoCorasickMatcher {
+    private static final int ROOT = 0;
+
+    private final int[] edgeStart;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final int[] fail;
+    private final boolean[] terminal;
+    private final int patternCount;
+
+    private AhoCorasickMatcher(int[] edgeStart, char[] edgeChars, int[] edgeTargets,
+                               int[] fail, boolean[] terminal, int patternCount) {
+        this.edgeStart = edgeStart;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.terminal = terminal;
+        this.patternCount = patternCount;
+    }
+
+    public static AhoCorasickMatcher compile(Collection<String> patterns) {
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Boolean> terminalStates = new ArrayList<>();
+        children.add(new TreeMap<>());
+        terminalStates.add(false);
+        int patternCount = 0;
+        for (String pattern : patterns) {
+            if (pattern == null || pattern.isBlank()) {
+                continue;
+            }
+            int state = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = Character.toLowerCase(pattern.charAt(i));
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.get(state).put(c, next);
+                    children.add(new TreeMap<>());
+                    terminalStates.add(false);
+                }
+                state = next;
+            }
+            terminalStates.set(state, true);
+            patternCount++;
+        }
+
+        int states = children.size();
+        int[] edgeStart = new int[states + 1];
+        for (int s = 0; s < states; s++) {
+            edgeStart[s + 1] = edgeStart[s] + children.get(s).size();
+        }
+        char[] edgeChars = new char[edgeStart[states]];
+        int[] edgeTargets = new int[edgeStart[states]];
+        boolean[] terminal = new boolean[states];
+        for (int s = 0; s < states; s++) {
+            int edge = edgeStart[s];
+            for (Map.Entry<Character, Integer> entry : children.get(s).entrySet()) {
+                edgeChars[edge] = entry.getKey();
+                edgeTargets[edge] = entry.getValue();
+                edge++;
+            }
+            terminal[s] = terminalStates.get(s);
+        }
+
+        AhoCorasickMatcher matcher = new AhoCorasickMatcher(edgeStart, edgeChars, edgeTargets,
+                new int[states], terminal, patternCount);
+        matcher.buildFailLinks();
+        return matcher;
+    }
+
+    /**
+     * Содержит ли текст хотя бы одно стоп-слово.
+     */
+    public boolean matches(CharSequence text) {
+        if (patternCount == 0 || text == null) {
+            return false;
+        }
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next = transition(state, c);
+            while (next < 0 && state != ROOT) {
+                state = fail[state];
+                next = transition(state, c);
+            }
+            state = next < 0 ? ROOT : next;
+            if (terminal[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int patternCount() {
+        return patternCount;
+    }
+
+    /**
+     * Обход в ширину: ссылка неудачи ведёт в самое длинное собственное окончание пути,
+     * которое тоже есть в боре; признак конечного состояния наследуется по ней.
+     */
+    private void buildFailLinks() {
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int edge = edgeStart[ROOT]; edge < edgeStart[ROOT + 1]; edge++) {
+            fail[edgeTargets[edge]] = ROOT;
+            queue.add(edgeTargets[edge]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int edge = edgeStart[state]; edge < edgeStart[state + 1]; edge++) {
+                int child = edgeTargets[edge];
+                char c = edgeChars[edge];
+                int f = fail[state];
+                int next = transition(f, c);
+                while (next < 0 && f != ROOT) {
+                    f = fail[f];
+                    next = transition(f, c);
+                }
+                fail[child] = next < 0 ? ROOT : next;
+                terminal[child] |= terminal[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    private int transition(int state, char c) {
+        int low = edgeStart[state];
+        int high = edgeStart[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = edgeChars[mid];
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+}
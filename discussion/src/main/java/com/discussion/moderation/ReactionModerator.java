@@ -0,0 +1,115 @@
+package com.discussion.moderation;
+
+import com.discussion.entities.Reaction;
+import com.discussion.entities.ReactionState;
+import com.discussion.repository.ReactionDao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Асинхронная модерация созданных и изменённых реакций: текст проверяется по списку стоп-слов
+ * автоматом Ахо-Корасик, и state меняется с PENDING на APPROVE или DELCINE.
+ * Проверка идёт в пуле по числу ядер, ограниченном очередью: при переполнении
+ * реакция остаётся в PENDING, а отказ считается в discussion.moderation.rejected.
+ * Файл стоп-слов перечитывается, когда меняется время его изменения.
+ */
+@Component
+@Slf4j
+public class ReactionModerator implements DisposableBean {
+    private final ReactionDao reactionDao;
+    private final Resource stopWords;
+    private final ThreadPoolExecutor executor;
+    private final Timer latency;
+    private final Counter rejected;
+    private final Counter approved;
+    private final Counter declined;
+    private volatile AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of());
+    private volatile long loadedModified = -1;
+
+    public ReactionModerator(ReactionDao reactionDao,
+                             MeterRegistry meterRegistry,
+                             @Value("${discussion.moderation.stop-words}") Resource stopWords,
+                             @Value("${discussion.moderation.queue-capacity}") int queueCapacity) {
+        this.reactionDao = reactionDao;
+        this.stopWords = stopWords;
+        int threads = Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity));
+        this.latency = meterRegistry.timer("discussion.moderation.latency");
+        this.rejected = meterRegistry.counter("discussion.moderation.rejected");
+        this.approved = meterRegistry.counter("discussion.moderation.results", "state", ReactionState.APPROVE.name());
+        this.declined = meterRegistry.counter("discussion.moderation.results", "state", ReactionState.DELCINE.name());
+        meterRegistry.gauge("discussion.moderation.queue", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("discussion.moderation.patterns", this, moderator -> moderator.matcher.patternCount());
+        reloadStopWords();
+    }
+
+    public void submit(Reaction reaction) {
+        try {
+            executor.execute(() -> moderate(reaction));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+        }
+    }
+
+    public ReactionState classify(String content) {
+        return matcher.matches(content) ? ReactionState.DELCINE : ReactionState.APPROVE;
+    }
+
+    @Scheduled(fixedDelayString = "${discussion.moderation.reload-interval}")
+    public void reloadStopWords() {
+        try {
+            long modified = stopWords.lastModified();
+            if (modified == loadedModified) {
+                return;
+            }
+            List<String> patterns;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stopWords.getInputStream(), StandardCharsets.UTF_8))) {
+                patterns = reader.lines()
+                        .map(String::strip)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .toList();
+            }
+            matcher = AhoCorasickMatcher.compile(patterns);
+            loadedModified = modified;
+            log.info("Loaded {} stop words from {}", matcher.patternCount(), stopWords);
+        } catch (IOException e) {
+            log.warn("Could not load stop words from {}, keeping the previous list", stopWords, e);
+        }
+    }
+
+    private void moderate(Reaction reaction) {
+        long start = System.nanoTime();
+        ReactionState state = classify(reaction.getContent());
+        latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        (state == ReactionState.APPROVE ? approved : declined).increment();
+        reaction.setState(state);
+        reactionDao.updateState(reaction).whenComplete((applied, ex) -> {
+            if (ex != null) {
+                log.warn("Could not store moderation result for reaction {}", reaction.getId(), ex);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
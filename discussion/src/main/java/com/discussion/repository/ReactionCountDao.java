@@ -0,0 +1,40 @@
+package com.discussion.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.cassandra.SessionFactory;
+import org.springframework.stereotype.Repository;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Счётчики реакций по статьям в таблице reaction_counts. Schema-action Spring Data
+ * не создаёт таблицы со столбцом counter, поэтому таблицу создаёт cql/schema.cql.
+ */
+@Repository
+@DependsOn("cassandraSchemaInitializer")
+public class ReactionCountDao {
+    private final CqlSession session;
+    private final PreparedStatement add;
+    private final PreparedStatement select;
+
+    public ReactionCountDao(SessionFactory sessionFactory) {
+        this.session = sessionFactory.getSession();
+        this.add = session.prepare("UPDATE reaction_counts SET reactions = reactions + ? WHERE articleid = ?");
+        this.select = session.prepare("SELECT reactions FROM reaction_counts WHERE articleid = ?");
+    }
+
+    public CompletionStage<Void> add(long articleId, long delta) {
+        return session.executeAsync(add.bind(delta, articleId)).thenApply(rs -> null);
+    }
+
+    public CompletionStage<Long> get(long articleId) {
+        return session.executeAsync(select.bind(articleId))
+                .thenApply(rs -> {
+                    Row row = rs.one();
+                    return row != null ? row.getLong("reactions") : 0L;
+                });
+    }
+}
@@ -0,0 +1,374 @@
+package com.discussion.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.discussion.entities.Reaction;
+import com.discussion.entities.ReactionState;
+import com.discussion.service.SnowflakeIdGenerator;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.cassandra.SessionFactory;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Асинхронный доступ к tbl_reaction и reactions_by_article на подготовленных запросах.
+ * Ключ партиции привязывается к запросу, поэтому драйвер отправляет его сразу на реплику-владельца.
+ * Число одновременных запросов ограничивает throttler драйвера (spring.cassandra.request.throttler).
+ * <p>
+ * Строка tbl_reaction после создания меняется только условными запросами (LWT) по articleId и version,
+ * поэтому одновременные изменения и удаление одной реакции выполняются по очереди, а reactions_by_article
+ * трогается только после того, как условие выполнилось. version - timestamp записи в микросекундах:
+ * с ним же пишутся строки reactions_by_article, и запоздавшая запись не перекрывает более позднюю.
+ * Создание пишется с временем из id, изменение и удаление - не раньше version + 2,
+ * вердикт модерации - с version + 1.
+ * <p>
+ * Изменение в пределах статьи - один условный запрос без чтения. Если условие не выполнилось,
+ * Cassandra возвращает текущие articleId и version, и запрос повторяется с ними.
+ * Удалению нужен articleId строки, поэтому оно сначала читает её.
+ */
+@Repository
+public class ReactionDao {
+    /** Размер временного бакета reactions_by_article - сутки. */
+    static final long BUCKET_MILLIS = 24 * 60 * 60 * 1000L;
+    /** Сколько раз повторяется условный запрос, проигравший гонку другому изменению. */
+    static final int MAX_ATTEMPTS = 5;
+    /** Примерный предел текста в одном batch'е insertAll - с запасом до batch_size_fail_threshold Cassandra. */
+    static final int MAX_BATCH_CHARS = 32 * 1024;
+
+    private final CqlSession session;
+    private final PreparedStatement insert;
+    private final PreparedStatement selectById;
+    private final PreparedStatement selectAll;
+    private final PreparedStatement updateInArticle;
+    private final PreparedStatement updateIfCurrent;
+    private final PreparedStatement deleteIfCurrent;
+    private final PreparedStatement insertByArticle;
+    private final PreparedStatement insertByArticleAt;
+    private final PreparedStatement deleteByArticle;
+    private final PreparedStatement selectByArticle;
+    private final PreparedStatement insertBucket;
+    private final PreparedStatement selectBuckets;
+    private final PreparedStatement updateState;
+    private final PreparedStatement updateStateByArticle;
+    private final PreparedStatement countInBucket;
+    private final PreparedStatement selectArticleIds;
+
+    public ReactionDao(SessionFactory sessionFactory) {
+        this.session = sessionFactory.getSession();
+        this.insert = session.prepare("INSERT INTO tbl_reaction (id, articleid, content, state, version) VALUES (?, ?, ?, ?, ?)");
+        this.selectById = session.prepare("SELECT id, articleid, content, state, version FROM tbl_reaction WHERE id = ?");
+        this.selectAll = session.prepare("SELECT id, articleid, content, state, version FROM tbl_reaction");
+        this.updateInArticle = session.prepare("UPDATE tbl_reaction SET content = ?, state = ?, version = ? WHERE id = ? IF articleid = ? AND version < ?");
+        this.updateIfCurrent = session.prepare("UPDATE tbl_reaction SET articleid = ?, content = ?, state = ?, version = ? WHERE id = ? IF articleid = ? AND version = ?");
+        this.deleteIfCurrent = session.prepare("DELETE FROM tbl_reaction WHERE id = ? IF articleid = ? AND version = ?");
+        this.insertByArticle = session.prepare("INSERT INTO reactions_by_article (articleid, bucket, id, content, state) VALUES (?, ?, ?, ?, ?)");
+        this.insertByArticleAt = session.prepare("INSERT INTO reactions_by_article (articleid, bucket, id, content, state) VALUES (?, ?, ?, ?, ?) USING TIMESTAMP ?");
+        this.deleteByArticle = session.prepare("DELETE FROM reactions_by_article WHERE articleid = ? AND bucket = ? AND id = ?");
+        this.selectByArticle = session.prepare("SELECT id, articleid, content, state FROM reactions_by_article WHERE articleid = ? AND bucket = ?");
+        this.insertBucket = session.prepare("INSERT INTO reaction_buckets_by_article (articleid, bucket) VALUES (?, ?)");
+        this.selectBuckets = session.prepare("SELECT bucket FROM reaction_buckets_by_article WHERE articleid = ? AND bucket >= ?");
+        this.countInBucket = session.prepare("SELECT COUNT(*) FROM reactions_by_article WHERE articleid = ? AND bucket = ?");
+        this.selectArticleIds = session.prepare("SELECT DISTINCT articleid FROM reaction_buckets_by_article");
+        this.updateState = session.prepare("UPDATE tbl_reaction SET state = ? WHERE id = ? IF version = ?");
+        this.updateStateByArticle = session.prepare("UPDATE reactions_by_article SET state = ? WHERE articleid = ? AND bucket = ? AND id = ?");
+    }
+
+    /**
+     * Пишется с временем из id, поэтому повторная вставка той же реакции (например, при
+     * повторе журнала write-behind) не перекрывает её более поздние изменения и удаление.
+     */
+    public CompletionStage<Reaction> insert(Reaction reaction) {
+        long version = prepareInsert(reaction);
+        BatchStatementBuilder batch = BatchStatement.builder(DefaultBatchType.LOGGED)
+                .addStatement(insert.bind(reaction.getId(), reaction.getArticleId(), reaction.getContent(),
+                        reaction.getState().name(), version));
+        addToArticle(batch, reaction);
+        return session.executeAsync(batch.build().setQueryTimestamp(version))
+                .thenApply(rs -> reaction);
+    }
+
+    /**
+     * Пакетная вставка для write-behind, тоже с временем из id. Строки tbl_reaction - каждая своя партиция -
+     * пишутся отдельными запросами, строки reactions_by_article группируются по партиции (статья, бакет)
+     * в UNLOGGED batch'и, бакет статьи записывается один раз на группу. Вставка не атомарна:
+     * при ошибке её повторяют целиком, повтор ничего не перекрывает.
+     */
+    public CompletionStage<Void> insertAll(List<Reaction> reactions) {
+        List<CompletableFuture<?>> writes = new ArrayList<>();
+        Map<ArticleBucket, List<BatchStatementBuilder>> partitions = new LinkedHashMap<>();
+        Map<ArticleBucket, Integer> batchChars = new HashMap<>();
+        for (Reaction reaction : reactions) {
+            long version = prepareInsert(reaction);
+            writes.add(session.executeAsync(insert.bind(reaction.getId(), reaction.getArticleId(), reaction.getContent(),
+                            reaction.getState().name(), version).setQueryTimestamp(version))
+                    .toCompletableFuture());
+            if (reaction.getArticleId() == null) {
+                continue;
+            }
+            ArticleBucket partition = new ArticleBucket(reaction.getArticleId(), bucketOf(reaction.getId()));
+            List<BatchStatementBuilder> batches = partitions.computeIfAbsent(partition, key -> new ArrayList<>());
+            int chars = reaction.getContent() != null ? reaction.getContent().length() : 0;
+            int used = batchChars.getOrDefault(partition, 0);
+            if (batches.isEmpty() || used + chars > MAX_BATCH_CHARS) {
+                batches.add(BatchStatement.builder(DefaultBatchType.UNLOGGED));
+                used = 0;
+            }
+            batchChars.put(partition, used + chars);
+            batches.get(batches.size() - 1).addStatement(insertByArticleAt.bind(partition.articleId(), partition.bucket(),
+                    reaction.getId(), reaction.getContent(), reaction.getState().name(), version));
+        }
+        partitions.forEach((partition, batches) -> {
+            writes.add(session.executeAsync(insertBucket.bind(partition.articleId(), partition.bucket())).toCompletableFuture());
+            for (BatchStatementBuilder batch : batches) {
+                writes.add(session.executeAsync(batch.build()).toCompletableFuture());
+            }
+        });
+        return CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new));
+    }
+
+    private static long prepareInsert(Reaction reaction) {
+        if (reaction.getState() == null) {
+            reaction.setState(ReactionState.PENDING);
+        }
+        long version = TimeUnit.MILLISECONDS.toMicros(SnowflakeIdGenerator.timestampOf(reaction.getId()));
+        reaction.setVersion(version);
+        return version;
+    }
+
+    public CompletionStage<Optional<Reaction>> findById(long id) {
+        return session.executeAsync(selectById.bind(id))
+                .thenApply(rs -> Optional.ofNullable(rs.one()).map(ReactionDao::toReaction));
+    }
+
+    public CompletionStage<Slice<Reaction>> findPage(int size, ByteBuffer pagingState) {
+        return session.executeAsync(selectAll.bind().setPageSize(size).setPagingState(pagingState))
+                .thenApply(rs -> toSlice(rs, size));
+    }
+
+    /**
+     * Список бакетов статьи начиная с fromBucket, по возрастанию.
+     */
+    public CompletionStage<List<Integer>> findBuckets(long articleId, int fromBucket) {
+        return session.executeAsync(selectBuckets.bind(articleId, fromBucket))
+                .thenApply(rs -> {
+                    List<Integer> buckets = new ArrayList<>();
+                    for (Row row : rs.currentPage()) {
+                        buckets.add(row.getInt("bucket"));
+                    }
+                    return buckets;
+                });
+    }
+
+    /**
+     * Точное число реакций статьи: сумма COUNT(*) по её бакетам.
+     */
+    public CompletionStage<Long> countByArticle(long articleId) {
+        return findBuckets(articleId, Integer.MIN_VALUE).thenCompose(buckets -> {
+            CompletableFuture<Long> total = CompletableFuture.completedFuture(0L);
+            for (int bucket : buckets) {
+                CompletableFuture<Long> inBucket = session.executeAsync(countInBucket.bind(articleId, bucket))
+                        .thenApply(rs -> rs.one().getLong(0))
+                        .toCompletableFuture();
+                total = total.thenCombine(inBucket, Long::sum);
+            }
+            return total;
+        });
+    }
+
+    /**
+     * Все статьи, у которых когда-либо были реакции. Синхронный обход всех страниц,
+     * только для фоновых задач - не вызывать из потоков драйвера.
+     */
+    public List<Long> findArticleIds() {
+        List<Long> ids = new ArrayList<>();
+        for (Row row : session.execute(selectArticleIds.bind())) {
+            ids.add(row.getLong("articleid"));
+        }
+        return ids;
+    }
+
+    /**
+     * Страница одного бакета статьи - чтение одной партиции.
+     */
+    public CompletionStage<Slice<Reaction>> findPageByArticle(long articleId, int bucket, int size, ByteBuffer pagingState) {
+        return session.executeAsync(selectByArticle.bind(articleId, bucket).setPageSize(size).setPagingState(pagingState))
+                .thenApply(rs -> toSlice(rs, size));
+    }
+
+    /**
+     * Меняет текст и статью реакции и сбрасывает state в PENDING - реакцию нужно заново
+     * отправить на модерацию. При смене статьи строка переносится в её партицию.
+     * Заполняет version реакции.
+     *
+     * @return id и articleId реакции до изменения или пустой Optional, если реакции с таким id нет
+     */
+    public CompletionStage<Optional<Reaction>> update(Reaction reaction) {
+        reaction.setState(ReactionState.PENDING);
+        long version = nowMicros();
+        reaction.setVersion(version);
+        return session.executeAsync(updateInArticle.bind(reaction.getContent(), reaction.getState().name(), version,
+                        reaction.getId(), reaction.getArticleId(), version - 1))
+                .thenCompose(rs -> rs.wasApplied()
+                        ? afterUpdate(reaction, reaction.getArticleId())
+                        : updateIfCurrent(reaction, rs.one(), 1));
+    }
+
+    private CompletionStage<Optional<Reaction>> updateIfCurrent(Reaction reaction, Row current, int attempt) {
+        Long articleId = current.get("articleid", Long.class);
+        if (articleId == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        if (attempt >= MAX_ATTEMPTS) {
+            return CompletableFuture.failedFuture(conflict(reaction.getId()));
+        }
+        Long currentVersion = current.get("version", Long.class);
+        long version = nextVersion(currentVersion);
+        reaction.setVersion(version);
+        return session.executeAsync(updateIfCurrent.bind(reaction.getArticleId(), reaction.getContent(),
+                        reaction.getState().name(), version, reaction.getId(), articleId, currentVersion))
+                .thenCompose(rs -> rs.wasApplied()
+                        ? afterUpdate(reaction, articleId)
+                        : updateIfCurrent(reaction, rs.one(), attempt + 1));
+    }
+
+    private CompletionStage<Optional<Reaction>> afterUpdate(Reaction reaction, long previousArticleId) {
+        BatchStatementBuilder batch = BatchStatement.builder(DefaultBatchType.LOGGED);
+        if (!Objects.equals(previousArticleId, reaction.getArticleId())) {
+            batch.addStatement(deleteByArticle.bind(previousArticleId, bucketOf(reaction.getId()), reaction.getId()));
+        }
+        addToArticle(batch, reaction);
+        return session.executeAsync(batch.build().setQueryTimestamp(reaction.getVersion()))
+                .thenApply(rs -> Optional.of(Reaction.builder().id(reaction.getId()).articleId(previousArticleId).build()));
+    }
+
+    /**
+     * Удаляет строку, только если она не изменилась после чтения; иначе повторяет с текущими значениями.
+     *
+     * @return удалённая строка или пустой Optional, если реакции с таким id нет
+     */
+    public CompletionStage<Optional<Reaction>> delete(long id) {
+        return findById(id).thenCompose(existing -> existing.isEmpty()
+                ? CompletableFuture.completedFuture(existing)
+                : deleteIfCurrent(existing.get(), 1));
+    }
+
+    private CompletionStage<Optional<Reaction>> deleteIfCurrent(Reaction current, int attempt) {
+        return session.executeAsync(deleteIfCurrent.bind(current.getId(), current.getArticleId(), current.getVersion()))
+                .thenCompose(rs -> {
+                    if (rs.wasApplied()) {
+                        BatchStatementBuilder batch = BatchStatement.builder(DefaultBatchType.LOGGED);
+                        removeFromArticle(batch, current);
+                        return session.executeAsync(batch.build().setQueryTimestamp(nextVersion(current.getVersion())))
+                                .thenApply(ignored -> Optional.of(current));
+                    }
+                    Row row = rs.one();
+                    Long articleId = row.get("articleid", Long.class);
+                    if (articleId == null) {
+                        return CompletableFuture.completedFuture(Optional.<Reaction>empty());
+                    }
+                    if (attempt >= MAX_ATTEMPTS) {
+                        return CompletableFuture.<Optional<Reaction>>failedFuture(conflict(current.getId()));
+                    }
+                    current.setArticleId(articleId);
+                    current.setVersion(row.get("version", Long.class));
+                    return deleteIfCurrent(current, attempt + 1);
+                });
+    }
+
+    /**
+     * Меняет только state, если реакция не менялась с версии, которую проверял модератор:
+     * иначе вердикт устарел, а удалённая строка не воскреснет. Строка reactions_by_article
+     * меняется после этого с timestamp version + 1 - значит, в партиции текущей статьи,
+     * а перенос или удаление реакции, записанные позже, её перекрывают.
+     *
+     * @return false, если реакции уже нет или она изменилась
+     */
+    public CompletionStage<Boolean> updateState(Reaction reaction) {
+        String state = reaction.getState().name();
+        return session.executeAsync(updateState.bind(state, reaction.getId(), reaction.getVersion()))
+                .thenCompose(rs -> !rs.wasApplied() || reaction.getArticleId() == null || reaction.getVersion() == null
+                        ? CompletableFuture.completedFuture(rs.wasApplied())
+                        : session.executeAsync(updateStateByArticle.bind(state,
+                                                reaction.getArticleId(), bucketOf(reaction.getId()), reaction.getId())
+                                        .setQueryTimestamp(reaction.getVersion() + 1))
+                                .thenApply(byArticle -> true));
+    }
+
+    public static int bucketOf(long id) {
+        return (int) (SnowflakeIdGenerator.timestampOf(id) / BUCKET_MILLIS);
+    }
+
+    private void addToArticle(BatchStatementBuilder batch, Reaction reaction) {
+        if (reaction.getArticleId() == null) {
+            return;
+        }
+        int bucket = bucketOf(reaction.getId());
+        batch.addStatement(insertByArticle.bind(reaction.getArticleId(), bucket, reaction.getId(),
+                        reaction.getContent(), reaction.getState().name()))
+                .addStatement(insertBucket.bind(reaction.getArticleId(), bucket));
+    }
+
+    private void removeFromArticle(BatchStatementBuilder batch, Reaction reaction) {
+        if (reaction.getArticleId() != null) {
+            batch.addStatement(deleteByArticle.bind(reaction.getArticleId(), bucketOf(reaction.getId()), reaction.getId()));
+        }
+    }
+
+    private static long nowMicros() {
+        return TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    }
+
+    /**
+     * Timestamp следующего изменения строки с версией current: на 1 остаётся место для вердикта модерации.
+     */
+    private static long nextVersion(Long current) {
+        return current == null ? nowMicros() : Math.max(nowMicros(), current + 2);
+    }
+
+    private static OptimisticLockingFailureException conflict(long id) {
+        return new OptimisticLockingFailureException("Reaction " + id + " keeps changing concurrently");
+    }
+
+    private static Slice<Reaction> toSlice(AsyncResultSet rs, int size) {
+        List<Reaction> items = new ArrayList<>(size);
+        for (Row row : rs.currentPage()) {
+            items.add(toReaction(row));
+        }
+        ByteBuffer next = rs.hasMorePages() ? rs.getExecutionInfo().getPagingState() : null;
+        return new SliceImpl<>(items, CassandraPageRequest.of(PageRequest.of(0, size), next), next != null);
+    }
+
+    static Reaction toReaction(Row row) {
+        String state = row.getString("state");
+        return Reaction.builder()
+                .id(row.get("id", Long.class))
+                .articleId(row.get("articleid", Long.class))
+                .content(row.getString("content"))
+                .state(state != null ? ReactionState.valueOf(state) : ReactionState.PENDING)
+                .version(row.getColumnDefinitions().contains("version") ? row.get("version", Long.class) : null)
+                .build();
+    }
+
+    private record ArticleBucket(long articleId, int bucket) {
+    }
+}
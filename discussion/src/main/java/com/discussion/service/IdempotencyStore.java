@@ -0,0 +1,103 @@
+package com.discussion.service;
+
+import com.publisher.kafka.ReactionMessage;
+import com.publisher.kafka.ReactionMessageCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Ответы на уже выполненные изменяющие команды по correlation id.
+ * Первый уровень - LRU в памяти на local-size записей, второй - Redis с TTL,
+ * чтобы повтор после падения или ребалансировки нашёлся и на другом экземпляре discussion.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+    private static final String KEY_PREFIX = "discussion:reply:";
+
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+    private final Duration ttl;
+    private final Map<String, byte[]> local;
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public IdempotencyStore(ReactiveRedisTemplate<String, byte[]> binaryRedisTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${discussion.idempotency.local-size}") int localSize,
+                            @Value("${discussion.idempotency.ttl}") long ttl) {
+        this.redisTemplate = binaryRedisTemplate;
+        this.ttl = Duration.ofMillis(ttl);
+        this.local = new LinkedHashMap<>(localSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > localSize;
+            }
+        };
+        this.localHits = meterRegistry.counter("discussion.idempotency.lookups", "result", "local");
+        this.redisHits = meterRegistry.counter("discussion.idempotency.lookups", "result", "redis");
+        this.misses = meterRegistry.counter("discussion.idempotency.lookups", "result", "miss");
+    }
+
+    public CompletableFuture<Optional<ReactionMessage>> find(String correlationId) {
+        byte[] cached;
+        synchronized (local) {
+            cached = local.get(correlationId);
+        }
+        if (cached != null) {
+            localHits.increment();
+            return CompletableFuture.completedFuture(Optional.of(ReactionMessageCodec.decode(cached)));
+        }
+        return redisTemplate.opsForValue().get(KEY_PREFIX + correlationId)
+                .map(bytes -> {
+                    redisHits.increment();
+                    remember(correlationId, bytes);
+                    return Optional.of(ReactionMessageCodec.decode(bytes));
+                })
+                .defaultIfEmpty(Optional.empty())
+                .doOnNext(found -> {
+                    if (found.isEmpty()) {
+                        misses.increment();
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.warn("Idempotency lookup in Redis failed for {}", correlationId, e);
+                    misses.increment();
+                    return Mono.just(Optional.<ReactionMessage>empty());
+                })
+                .toFuture();
+    }
+
+    /**
+     * Завершается, когда ответ записан в Redis: подтверждать запись Kafka раньше нельзя,
+     * иначе повтор после падения не найдёт ответ. Ошибка Redis не мешает отправить ответ.
+     */
+    public CompletableFuture<ReactionMessage> save(String correlationId, ReactionMessage reply) {
+        byte[] bytes = ReactionMessageCodec.encode(reply);
+        remember(correlationId, bytes);
+        return redisTemplate.opsForValue().set(KEY_PREFIX + correlationId, bytes, ttl)
+                .onErrorResume(e -> {
+                    log.warn("Could not store reply for {} in Redis", correlationId, e);
+                    return Mono.just(false);
+                })
+                .thenReturn(reply)
+                .toFuture();
+    }
+
+    private void remember(String correlationId, byte[] bytes) {
+        synchronized (local) {
+            local.put(correlationId, bytes);
+        }
+    }
+}
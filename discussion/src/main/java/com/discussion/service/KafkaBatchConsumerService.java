@@ -0,0 +1,71 @@
+package com.discussion.service;
+
+import com.publisher.kafka.ReactionHeaders;
+import com.publisher.kafka.ReactionMessage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Пакетная обработка OutTopic: записи группируются по ключу, группы выполняются
+ * параллельно (внутри группы - цепочкой по порядку), и смещения фиксируются один раз на пакет.
+ * Запросы к Cassandra асинхронные, поэтому отдельный пул потоков не нужен:
+ * число одновременных запросов ограничивает throttler драйвера.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "discussion.kafka.consumer-mode", havingValue = "batch")
+public class KafkaBatchConsumerService {
+    private final ReactionCommandHandler commandHandler;
+    private final ReactionReplySender replySender;
+    private final Timer batchTimer;
+    private final DistributionSummary batchSize;
+
+    public KafkaBatchConsumerService(ReactionCommandHandler commandHandler,
+                                     ReactionReplySender replySender,
+                                     MeterRegistry meterRegistry) {
+        this.commandHandler = commandHandler;
+        this.replySender = replySender;
+        this.batchTimer = meterRegistry.timer("discussion.kafka.batch.duration");
+        this.batchSize = meterRegistry.summary("discussion.kafka.batch.size");
+    }
+
+    @KafkaListener(topics = "OutTopic", groupId = "discussion",
+            containerFactory = "batchKafkaListenerContainerFactory", batch = "true")
+    public void listen(List<ConsumerRecord<String, ReactionMessage>> records, Acknowledgment ack) {
+        Timer.Sample sample = Timer.start();
+        Map<String, List<ConsumerRecord<String, ReactionMessage>>> byKey = new LinkedHashMap<>();
+        for (ConsumerRecord<String, ReactionMessage> record : records) {
+            String key = record.key() != null ? record.key() : record.partition() + "-" + record.offset();
+            byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+        }
+        CompletableFuture.allOf(byKey.values().stream()
+                .map(this::processInOrder)
+                .toArray(CompletableFuture[]::new)).join();
+        ack.acknowledge();
+        batchSize.record(records.size());
+        sample.stop(batchTimer);
+        log.debug("Processed batch of {} records in {} key groups", records.size(), byKey.size());
+    }
+
+    private CompletableFuture<?> processInOrder(List<ConsumerRecord<String, ReactionMessage>> group) {
+        CompletableFuture<?> chain = CompletableFuture.completedFuture(null);
+        for (ConsumerRecord<String, ReactionMessage> record : group) {
+            chain = chain.thenCompose(previous -> commandHandler.handle(ReactionHeaders.correlationId(record.headers()), record.value())
+                    .thenCompose(reply -> replySender.send(record, reply)));
+        }
+        return chain;
+    }
+}
@@ -0,0 +1,92 @@
+package com.discussion.service;
+
+import com.publisher.kafka.ReactionHeaders;
+import com.publisher.kafka.ReactionMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Параллельная обработка OutTopic внутри партиции. Каждая запись выполняется в своём виртуальном потоке;
+ * записи с одним ключом (статья или реакция, см. publisher.kafka.routing-key) выполняются строго по порядку,
+ * с разными ключами - независимо. Ошибка записи не останавливает следующие записи того же ключа.
+ * Смещение фиксируется контейнером только до первой незавершённой записи (asyncAcks), поэтому после падения
+ * повторяются лишь незавершённые команды, а повтор отсекает IdempotencyStore.
+ * <p>
+ * Отдельного ограничения числа записей в работе нет: с asyncAcks контейнер не выдаёт следующий poll,
+ * пока не подтверждены записи предыдущего, поэтому в работе не больше max.poll.records записей
+ * (spring.kafka.consumer.max-poll-records).
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "discussion.kafka.consumer-mode", havingValue = "parallel")
+public class KafkaParallelConsumerService implements DisposableBean {
+    private final ReactionCommandHandler commandHandler;
+    private final ReactionReplySender replySender;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Timer recordTimer;
+
+    public KafkaParallelConsumerService(ReactionCommandHandler commandHandler,
+                                        ReactionReplySender replySender,
+                                        MeterRegistry meterRegistry) {
+        this.commandHandler = commandHandler;
+        this.replySender = replySender;
+        this.recordTimer = meterRegistry.timer("discussion.kafka.parallel.duration");
+        meterRegistry.gauge("discussion.kafka.parallel.in-flight", inFlight);
+        meterRegistry.gauge("discussion.kafka.parallel.keys", tails, Map::size);
+    }
+
+    @KafkaListener(topics = "OutTopic", groupId = "discussion", containerFactory = "parallelKafkaListenerContainerFactory")
+    public void listen(ConsumerRecord<String, ReactionMessage> request, Acknowledgment ack) {
+        inFlight.incrementAndGet();
+        Runnable task = () -> process(request, ack);
+        String key = request.key();
+        if (key == null) {
+            CompletableFuture.runAsync(task, executor);
+            return;
+        }
+        CompletableFuture<Void> tail = tails.compute(key, (k, previous) -> previous == null
+                ? CompletableFuture.runAsync(task, executor)
+                : previous.handle((ignored, ex) -> null).thenRunAsync(task, executor));
+        tail.whenComplete((ignored, ex) -> tails.remove(key, tail));
+    }
+
+    /**
+     * Ошибки не пробрасываются: запись подтверждается в любом случае, иначе смещение партиции
+     * больше не сдвинется. Publisher в этом случае получит таймаут ожидания ответа.
+     */
+    private void process(ConsumerRecord<String, ReactionMessage> request, Acknowledgment ack) {
+        Timer.Sample sample = Timer.start();
+        try {
+            commandHandler.handle(ReactionHeaders.correlationId(request.headers()), request.value())
+                    .thenCompose(reply -> replySender.send(request, reply))
+                    .join();
+        } catch (RuntimeException e) {
+            log.error("Failed to process record {}-{}@{}", request.topic(), request.partition(), request.offset(), e);
+        } finally {
+            ack.acknowledge();
+            inFlight.decrementAndGet();
+            sample.stop(recordTimer);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.close();
+    }
+}
@@ -0,0 +1,164 @@
+package com.discussion.service;
+
+import com.discussion.dto.ReactionMapper;
+import com.discussion.dto.ReactionPageDTO;
+import com.discussion.dto.ReactionResponseDTO;
+import com.publisher.kafka.ReactionMessage;
+import com.publisher.kafka.ReactionMessageCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Redis-кэш отдельных реакций и страниц реакций статьи. Значения кодируются ReactionMessageCodec.
+ * <p>
+ * Страницы статьи лежат под ключом с номером версии статьи. Любое изменение её реакций увеличивает
+ * версию, и все старые страницы становятся недоступны сразу, а удаляются по TTL. Версия читается
+ * до запроса в Cassandra, поэтому страница, прочитанная до изменения, не попадёт под новую версию.
+ * <p>
+ * Удаление не стирает ключ реакции, а кладёт в него метку на tombstone-ttl. Заполнение после промаха
+ * пишется через SET NX, поэтому чтение, которое взяло строку из Cassandra до удаления,
+ * не вернёт удалённую реакцию в кэш на весь reaction-ttl.
+ * <p>
+ * Ошибки Redis не пробрасываются: чтение уходит в Cassandra, запись в кэш пропускается.
+ */
+@Component
+@Slf4j
+public class ReactionCache {
+    private static final String REACTION_KEY = "discussion:reaction:";
+    private static final String ARTICLE_VERSION_KEY = "discussion:article-version:";
+    private static final String ARTICLE_PAGE_KEY = "discussion:article-page:";
+    /** Метка удалённой реакции. Значения ReactionMessageCodec начинаются с MAGIC, а не с 0. */
+    private static final byte[] TOMBSTONE = {0};
+
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+    private final ReactionMapper mapper;
+    private final Duration reactionTtl;
+    private final Duration pageTtl;
+    private final Duration tombstoneTtl;
+    private final Counter reactionHits;
+    private final Counter reactionMisses;
+    private final Counter pageHits;
+    private final Counter pageMisses;
+
+    public ReactionCache(ReactiveRedisTemplate<String, byte[]> binaryRedisTemplate,
+                         ReactionMapper mapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${discussion.cache.reaction-ttl}") long reactionTtl,
+                         @Value("${discussion.cache.page-ttl}") long pageTtl,
+                         @Value("${discussion.cache.tombstone-ttl}") long tombstoneTtl) {
+        this.redisTemplate = binaryRedisTemplate;
+        this.mapper = mapper;
+        this.reactionTtl = Duration.ofMillis(reactionTtl);
+        this.pageTtl = Duration.ofMillis(pageTtl);
+        this.tombstoneTtl = Duration.ofMillis(tombstoneTtl);
+        this.reactionHits = meterRegistry.counter("discussion.cache.requests", "cache", "reaction", "result", "hit");
+        this.reactionMisses = meterRegistry.counter("discussion.cache.requests", "cache", "reaction", "result", "miss");
+        this.pageHits = meterRegistry.counter("discussion.cache.requests", "cache", "article-page", "result", "hit");
+        this.pageMisses = meterRegistry.counter("discussion.cache.requests", "cache", "article-page", "result", "miss");
+    }
+
+    /**
+     * Метка удалённой реакции считается промахом.
+     */
+    public CompletableFuture<Optional<ReactionResponseDTO>> get(long id) {
+        return redisTemplate.opsForValue().get(REACTION_KEY + id)
+                .map(bytes -> Arrays.equals(bytes, TOMBSTONE)
+                        ? Optional.<ReactionResponseDTO>empty()
+                        : Optional.of(mapper.toResponseDto(ReactionMessageCodec.decode(bytes))))
+                .onErrorResume(e -> {
+                    log.warn("Reaction cache read failed for {}", id, e);
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(Optional.empty())
+                .doOnNext(found -> (found.isPresent() ? reactionHits : reactionMisses).increment())
+                .toFuture();
+    }
+
+    /**
+     * Заполнение после промаха: не перезаписывает значение, уже положенное изменением,
+     * и метку удаления.
+     */
+    public CompletableFuture<Void> putIfAbsent(ReactionResponseDTO reaction) {
+        return ignoreErrors(redisTemplate.opsForValue()
+                .setIfAbsent(REACTION_KEY + reaction.getId(), ReactionMessageCodec.encode(mapper.toMessage(reaction)), reactionTtl));
+    }
+
+    public CompletableFuture<Void> put(ReactionResponseDTO reaction) {
+        return ignoreErrors(redisTemplate.opsForValue()
+                .set(REACTION_KEY + reaction.getId(), ReactionMessageCodec.encode(mapper.toMessage(reaction)), reactionTtl));
+    }
+
+    public CompletableFuture<Void> evict(long id) {
+        return ignoreErrors(redisTemplate.opsForValue().set(REACTION_KEY + id, TOMBSTONE, tombstoneTtl));
+    }
+
+    /**
+     * Текущая версия страниц статьи; 0, если статья ещё не менялась или Redis недоступен.
+     */
+    public CompletableFuture<Long> articleVersion(long articleId) {
+        return redisTemplate.opsForValue().get(ARTICLE_VERSION_KEY + articleId)
+                .map(bytes -> Long.parseLong(new String(bytes, StandardCharsets.US_ASCII)))
+                .onErrorResume(e -> Mono.empty())
+                .defaultIfEmpty(0L)
+                .toFuture();
+    }
+
+    public CompletableFuture<Optional<ReactionPageDTO>> getPage(long articleId, long version, int limit, String pageToken) {
+        return redisTemplate.opsForValue().get(pageKey(articleId, version, limit, pageToken))
+                .map(bytes -> {
+                    ReactionMessage page = ReactionMessageCodec.decode(bytes);
+                    return Optional.of(ReactionPageDTO.builder()
+                            .items(page.getItems().stream().map(mapper::toResponseDto).toList())
+                            .nextPageToken(page.getPageToken())
+                            .build());
+                })
+                .onErrorResume(e -> {
+                    log.warn("Reaction page cache read failed for article {}", articleId, e);
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(Optional.empty())
+                .doOnNext(found -> (found.isPresent() ? pageHits : pageMisses).increment())
+                .toFuture();
+    }
+
+    public CompletableFuture<Void> putPage(long articleId, long version, int limit, String pageToken, ReactionPageDTO page) {
+        ReactionMessage encoded = ReactionMessage.builder()
+                .items(page.getItems().stream().map(mapper::toMessage).toList())
+                .pageToken(page.getNextPageToken())
+                .build();
+        return ignoreErrors(redisTemplate.opsForValue()
+                .set(pageKey(articleId, version, limit, pageToken), ReactionMessageCodec.encode(encoded), pageTtl));
+    }
+
+    public CompletableFuture<Void> invalidateArticle(Long articleId) {
+        if (articleId == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return ignoreErrors(redisTemplate.opsForValue().increment(ARTICLE_VERSION_KEY + articleId));
+    }
+
+    private static String pageKey(long articleId, long version, int limit, String pageToken) {
+        return ARTICLE_PAGE_KEY + articleId + ':' + version + ':' + limit + ':' + (pageToken != null ? pageToken : "");
+    }
+
+    private static CompletableFuture<Void> ignoreErrors(Mono<?> operation) {
+        return operation
+                .onErrorResume(e -> {
+                    log.warn("Reaction cache write failed", e);
+                    return Mono.empty();
+                })
+                .then()
+                .toFuture();
+    }
+}
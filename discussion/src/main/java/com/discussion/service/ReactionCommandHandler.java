@@ -0,0 +1,120 @@
+package com.discussion.service;
+
+import com.datastax.oss.driver.api.core.DriverException;
+import com.discussion.dto.ReactionMapper;
+import com.discussion.dto.ReactionPageDTO;
+import com.discussion.dto.ReactionResponseDTO;
+import com.publisher.kafka.ReactionMessage;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Выполняет команду из Kafka и формирует ответ. Ошибки не выбрасываются,
+ * а возвращаются publisher'у кодом в поле status, поэтому future ответа всегда завершается успешно.
+ */
+@Component
+@Slf4j
+@AllArgsConstructor
+public class ReactionCommandHandler {
+    private final ReactionService reactionService;
+    private final ReactionMapper mapper;
+    private final IdempotencyStore idempotencyStore;
+
+    /**
+     * Изменяющая команда, уже выполненная с тем же correlation id, не выполняется повторно:
+     * возвращается сохранённый ответ. Ответы 5xx не сохраняются, такую команду можно повторить.
+     */
+    public CompletableFuture<ReactionMessage> handle(String correlationId, ReactionMessage message) {
+        if (correlationId == null || !isMutating(message)) {
+            return handle(message);
+        }
+        return idempotencyStore.find(correlationId).thenCompose(cached -> cached.isPresent()
+                ? CompletableFuture.completedFuture(cached.get())
+                : handle(message).thenCompose(reply -> reply.getStatus() >= 500
+                        ? CompletableFuture.completedFuture(reply)
+                        : idempotencyStore.save(correlationId, reply)));
+    }
+
+    public CompletableFuture<ReactionMessage> handle(ReactionMessage message) {
+        CompletableFuture<ReactionMessage> reply;
+        try {
+            reply = dispatch(message);
+        } catch (RuntimeException e) {
+            reply = CompletableFuture.failedFuture(e);
+        }
+        return reply.exceptionally(ex -> failure(message, ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex));
+    }
+
+    private ReactionMessage failure(ReactionMessage message, Throwable e) {
+        if (e instanceof EntityNotFoundException || e instanceof NoSuchElementException) {
+            return status(HttpStatus.NOT_FOUND);
+        }
+        if (e instanceof DriverException || e instanceof DataAccessException) {
+            log.error("Storage failure while processing request: {}", message, e);
+            return status(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        log.error("Failed to process request: {}", message, e);
+        return status(HttpStatus.BAD_REQUEST);
+    }
+
+    private CompletableFuture<ReactionMessage> dispatch(ReactionMessage message) {
+        if (message.getMethod() == null) {
+            return CompletableFuture.completedFuture(status(HttpStatus.METHOD_NOT_ALLOWED));
+        }
+        return switch (message.getMethod()) {
+            case GET -> {
+                if (message.getId() != null) {
+                    yield reactionService.get(message.getId()).thenApply(response -> reply(HttpStatus.OK, response));
+                }
+                if (Boolean.TRUE.equals(message.getCountOnly())) {
+                    yield reactionService.countByArticle(message.getArticleId())
+                            .thenApply(count -> ReactionMessage.builder()
+                                    .status(HttpStatus.OK.value())
+                                    .articleId(count.getArticleId())
+                                    .count(count.getCount())
+                                    .build());
+                }
+                CompletableFuture<ReactionPageDTO> page = message.getArticleId() != null
+                        ? reactionService.getReactionsByArticle(message.getArticleId(), message.getLimit(), message.getPageToken())
+                        : reactionService.getReactionsPage(message.getLimit(), message.getPageToken());
+                yield page.thenApply(page -> ReactionMessage.builder()
+                                .status(HttpStatus.OK.value())
+                                .items(page.getItems().stream().map(mapper::toMessage).toList())
+                                .pageToken(page.getNextPageToken())
+                                .build());
+            }
+            case PUT -> reactionService.updateReaction(mapper.toRequestDto(message))
+                    .thenApply(response -> reply(HttpStatus.OK, response));
+            case DELETE -> reactionService.deleteReaction(message.getId())
+                    .thenApply(response -> reply(HttpStatus.NO_CONTENT, response));
+            case POST -> reactionService.create(mapper.toRequestDto(message))
+                    .thenApply(response -> reply(HttpStatus.CREATED, response));
+            default -> CompletableFuture.completedFuture(status(HttpStatus.METHOD_NOT_ALLOWED));
+        };
+    }
+
+    private static boolean isMutating(ReactionMessage message) {
+        return message.getMethod() == RequestMethod.POST
+                || message.getMethod() == RequestMethod.PUT
+                || message.getMethod() == RequestMethod.DELETE;
+    }
+
+    private ReactionMessage reply(HttpStatus status, ReactionResponseDTO response) {
+        ReactionMessage reply = mapper.toMessage(response);
+        reply.setStatus(status.value());
+        return reply;
+    }
+
+    private static ReactionMessage status(HttpStatus status) {
+        return ReactionMessage.builder().status(status.value()).build();
+    }
+}
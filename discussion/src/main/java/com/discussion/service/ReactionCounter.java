@@ -0,0 +1,249 @@
+package com.discussion.service;
+
+import com.discussion.repository.ReactionCountDao;
+import com.discussion.repository.ReactionDao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Число реакций по статьям. Создание и удаление меняют LongAdder статьи в памяти,
+ * раз в flush-interval накопленная разница добавляется к счётчику в reaction_counts.
+ * Чтение - значение из Cassandra плюс ещё не сброшенная разница этого экземпляра.
+ * Сброс идёт под блокировкой, поэтому одна разница не добавляется дважды. Статья,
+ * у которой два сброса подряд не было изменений, убирается из памяти.
+ * <p>
+ * Сверка раз в reconcile-interval пересчитывает реакции каждой статьи по reactions_by_article
+ * и сравнивает с суммой счётчика и несброшенной разницы. Разница других экземпляров здесь не видна,
+ * поэтому расхождение исправляется, только если через два flush-interval оно не изменилось:
+ * за это время остальные экземпляры успевают сбросить свои разницы. Статьи с расхождением
+ * перепроверяются одним проходом после одной паузы.
+ * Сверка идёт в своём потоке, а не в пуле планировщика, и одновременно только на одном экземпляре:
+ * блокировка в Redis с TTL reconcile-lock-ttl снимается по окончании сверки. Если сверка не уложилась
+ * в TTL, оставшиеся статьи не исправляются - их проверит следующая сверка.
+ */
+@Component
+@Slf4j
+public class ReactionCounter implements DisposableBean {
+    private static final String RECONCILE_LOCK = "discussion:reaction-count:reconcile";
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final ReactionCountDao countDao;
+    private final ReactionDao reactionDao;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration reconcileLockTtl;
+    private final long settleMillis;
+    private final Map<Long, Delta> deltas = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ExecutorService reconcileExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private final Counter repaired;
+
+    public ReactionCounter(ReactionCountDao countDao,
+                           ReactionDao reactionDao,
+                           StringRedisTemplate redisTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${discussion.counters.flush-interval}") long flushInterval,
+                           @Value("${discussion.counters.reconcile-lock-ttl}") long reconcileLockTtl) {
+        this.countDao = countDao;
+        this.reactionDao = reactionDao;
+        this.redisTemplate = redisTemplate;
+        this.reconcileLockTtl = Duration.ofMillis(reconcileLockTtl);
+        this.settleMillis = 2 * flushInterval;
+        this.repaired = meterRegistry.counter("discussion.counters.repaired");
+        meterRegistry.gauge("discussion.counters.articles", deltas, Map::size);
+    }
+
+    public void increment(Long articleId) {
+        add(articleId, 1);
+    }
+
+    public void decrement(Long articleId) {
+        add(articleId, -1);
+    }
+
+    /**
+     * compute, а не computeIfAbsent: статья убирается из памяти тоже через compute,
+     * и изменение не попадёт в уже удалённый Delta.
+     */
+    private void add(Long articleId, long value) {
+        if (articleId != null) {
+            deltas.compute(articleId, (id, delta) -> {
+                Delta target = delta != null ? delta : new Delta();
+                target.adder.add(value);
+                return target;
+            });
+        }
+    }
+
+    public CompletableFuture<Long> count(long articleId) {
+        return countDao.get(articleId)
+                .thenApply(stored -> {
+                    Delta delta = deltas.get(articleId);
+                    return Math.max(0L, stored + (delta != null ? delta.unflushed() : 0L));
+                })
+                .toCompletableFuture();
+    }
+
+    /**
+     * Разница считается от уже сброшенной суммы, а не через sumThenReset:
+     * инкремент, пришедший во время сброса, попадёт в следующий.
+     */
+    @Scheduled(fixedDelayString = "${discussion.counters.flush-interval}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            deltas.forEach((articleId, delta) -> {
+                long sum = delta.adder.sum();
+                long pending = sum - delta.flushed;
+                if (pending != 0) {
+                    delta.idle = false;
+                    writes.add(countDao.add(articleId, pending)
+                            .thenRun(() -> delta.flushed = sum)
+                            .toCompletableFuture());
+                } else if (delta.idle) {
+                    deltas.computeIfPresent(articleId, (id, current) -> current.unflushed() == 0 ? null : current);
+                } else {
+                    delta.idle = true;
+                }
+            });
+            try {
+                CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+            } catch (RuntimeException e) {
+                log.warn("Could not flush reaction counters, will retry", e);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${discussion.counters.reconcile-interval}",
+            fixedDelayString = "${discussion.counters.reconcile-interval}")
+    public void reconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        reconcileExecutor.execute(() -> {
+            try {
+                reconcileAll();
+            } finally {
+                reconciling.set(false);
+            }
+        });
+    }
+
+    private void reconcileAll() {
+        String token = UUID.randomUUID().toString();
+        long lockedUntil = System.currentTimeMillis() + reconcileLockTtl.toMillis();
+        try {
+            Boolean locked = redisTemplate.opsForValue().setIfAbsent(RECONCILE_LOCK, token, reconcileLockTtl);
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not take reaction counter reconcile lock", e);
+            return;
+        }
+        try {
+            Map<Long, Long> drifts = new HashMap<>();
+            for (Long articleId : reactionDao.findArticleIds()) {
+                try {
+                    long drift = drift(articleId);
+                    if (drift != 0) {
+                        drifts.put(articleId, drift);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Could not reconcile reaction counter of article {}", articleId, e);
+                }
+            }
+            if (drifts.isEmpty()) {
+                return;
+            }
+            TimeUnit.MILLISECONDS.sleep(settleMillis);
+            for (Map.Entry<Long, Long> entry : drifts.entrySet()) {
+                if (System.currentTimeMillis() >= lockedUntil) {
+                    log.warn("Reaction counter reconcile lock expired, remaining articles are left to the next run");
+                    return;
+                }
+                Long articleId = entry.getKey();
+                try {
+                    if (drift(articleId) == entry.getValue()) {
+                        countDao.add(articleId, entry.getValue()).toCompletableFuture().join();
+                        repaired.increment();
+                        log.info("Reaction counter of article {} repaired by {}", articleId, entry.getValue());
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Could not reconcile reaction counter of article {}", articleId, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Reaction counter reconcile failed", e);
+        } finally {
+            try {
+                redisTemplate.execute(RELEASE, List.of(RECONCILE_LOCK), token);
+            } catch (RuntimeException e) {
+                log.warn("Could not release reaction counter reconcile lock", e);
+            }
+        }
+    }
+
+    /**
+     * Реакции в reactions_by_article минус счётчик и несброшенная разница этого экземпляра.
+     * Счётчик и разница читаются под блокировкой сброса, чтобы разница не попала в оба слагаемых или ни в одно.
+     */
+    private long drift(long articleId) {
+        long actual = reactionDao.countByArticle(articleId).toCompletableFuture().join();
+        flushLock.lock();
+        try {
+            long stored = countDao.get(articleId).toCompletableFuture().join();
+            Delta delta = deltas.get(articleId);
+            return actual - stored - (delta != null ? delta.unflushed() : 0L);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        reconcileExecutor.shutdownNow();
+    }
+
+    private static final class Delta {
+        private final LongAdder adder = new LongAdder();
+        /** Меняется только при сбросе. */
+        private volatile long flushed;
+        /** Не менялся с прошлого сброса; только под блокировкой сброса. */
+        private boolean idle;
+
+        private long unflushed() {
+            return adder.sum() - flushed;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.discussion.service;
+
+import com.publisher.kafka.ReactionHeaders;
+import com.publisher.kafka.ReactionMessage;
+import lombok.AllArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Отправляет ответ в топик, указанный publisher'ом в заголовке запроса.
+ */
+@Component
+@AllArgsConstructor
+public class ReactionReplySender {
+    private static final String TOPIC = "InTopic";
+    private final KafkaTemplate<String, ReactionMessage> kafkaTemplate;
+
+    public CompletableFuture<SendResult<String, ReactionMessage>> send(ConsumerRecord<String, ReactionMessage> request,
+                                                                      ReactionMessage reply) {
+        String replyTopic = ReactionHeaders.replyTopic(request.headers());
+        String correlationId = ReactionHeaders.correlationId(request.headers());
+        if (correlationId == null) {
+            correlationId = request.key();
+        }
+        ProducerRecord<String, ReactionMessage> record = new ProducerRecord<>(
+                replyTopic != null ? replyTopic : TOPIC, correlationId, reply);
+        ReactionHeaders.setCorrelationId(record.headers(), correlationId);
+        return kafkaTemplate.send(record);
+    }
+}
@@ -1,54 +1,225 @@
 package com.discussion.service;
 
+import com.discussion.dto.ReactionCountDTO;
 import com.discussion.dto.ReactionMapper;
+import com.discussion.dto.ReactionPageDTO;
 import com.discussion.dto.ReactionRequestDTO;
 import com.discussion.dto.ReactionResponseDTO;
 import com.discussion.entities.Reaction;
-import com.discussion.repository.ReactionRepoCassandra;
+import com.discussion.moderation.ReactionModerator;
+import com.discussion.repository.ReactionDao;
+import com.discussion.writebehind.WriteBehindReactionWriter;
 import jakarta.persistence.EntityNotFoundException;
-import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.ByteBuffer;
+import java.util.Base64;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
+/**
+ * Операции над одной реакцией и постраничное чтение асинхронны и не занимают поток
+ * на время запроса к Cassandra. Ошибка "не найдено" приходит в future как EntityNotFoundException.
+ * Отдельные реакции и страницы статьи читаются через ReactionCache, изменения сразу обновляют кэш.
+ */
 @Service
-@AllArgsConstructor
 @Transactional
 public class ReactionService {
-    private final ReactionRepoCassandra reactionRepository;
+    private final ReactionDao reactionDao;
     private ReactionMapper mapper;
-    private final AtomicLong counter = new AtomicLong();
+    private final SnowflakeIdGenerator idGenerator;
+    private final ReactionModerator moderator;
+    private final ReactionCache cache;
+    private final ReactionCounter counter;
+    private final Optional<WriteBehindReactionWriter> writeBehind;
+    private final int maxPageSize;
 
-    public ReactionResponseDTO create(ReactionRequestDTO reactionRequestTo) {
+    public ReactionService(ReactionDao reactionDao,
+                           ReactionMapper mapper,
+                           SnowflakeIdGenerator idGenerator,
+                           ReactionModerator moderator,
+                           ReactionCache cache,
+                           ReactionCounter counter,
+                           Optional<WriteBehindReactionWriter> writeBehind,
+                           @Value("${discussion.reactions.max-page-size}") int maxPageSize) {
+        this.reactionDao = reactionDao;
+        this.mapper = mapper;
+        this.idGenerator = idGenerator;
+        this.moderator = moderator;
+        this.cache = cache;
+        this.counter = counter;
+        this.writeBehind = writeBehind;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public CompletableFuture<ReactionResponseDTO> create(ReactionRequestDTO reactionRequestTo) {
         Reaction reaction = mapper.toEntity(reactionRequestTo);
-        reaction.setId(counter.incrementAndGet());
+        reaction.setId(idGenerator.nextId());
         reaction.setArticleId(reactionRequestTo.getArticleId());
-        return mapper.toResponseDto(reactionRepository.save(reaction));
+        if (writeBehind.isPresent()) {
+            return writeBehind.get().append(reaction)
+                    .thenCompose(created -> {
+                        counter.increment(created.getArticleId());
+                        ReactionResponseDTO response = mapper.toResponseDto(created);
+                        return cache.put(response).thenApply(ignored -> response);
+                    });
+        }
+        return reactionDao.insert(reaction)
+                .thenCompose(created -> {
+                    moderator.submit(created);
+                    counter.increment(created.getArticleId());
+                    ReactionResponseDTO response = mapper.toResponseDto(created);
+                    return CompletableFuture.allOf(cache.put(response), cache.invalidateArticle(created.getArticleId()))
+                            .thenApply(ignored -> response);
+                })
+                .toCompletableFuture();
     }
 
-    public List<ReactionResponseDTO> getReactions() {
-        return reactionRepository.findAll()
-                .stream()
-                .map(mapper::toResponseDto)
-                .toList();
+    /**
+     * Одна страница таблицы реакций. Токен страницы - paging state Cassandra в base64url,
+     * поэтому следующая страница читается с места остановки без повторного сканирования.
+     */
+    public CompletableFuture<ReactionPageDTO> getReactionsPage(Integer limit, String pageToken) {
+        int size = limit == null || limit <= 0 ? maxPageSize : Math.min(limit, maxPageSize);
+        ByteBuffer pagingState = pageToken == null ? null : ByteBuffer.wrap(Base64.getUrlDecoder().decode(pageToken));
+        return reactionDao.findPage(size, pagingState)
+                .thenApply(slice -> page(slice.getContent(), slice.hasNext() ? encode(nextPagingState(slice)) : null))
+                .toCompletableFuture();
     }
 
-    public ReactionResponseDTO deleteReaction(Long id) {
-        Reaction reaction = reactionRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Reaction not found with id: " + id));
-        reactionRepository.delete(reaction);
-        return mapper.toResponseDto(reaction);
+    /**
+     * Страница реакций статьи из reactions_by_article. Каждый запрос читает одну партицию (статья, бакет);
+     * токен страницы - номер бакета и paging state внутри него. Пустые бакеты пропускаются.
+     * Страницы кэшируются в Redis до следующего изменения реакций статьи.
+     */
+    public CompletableFuture<ReactionPageDTO> getReactionsByArticle(Long articleId, Integer limit, String pageToken) {
+        int size = limit == null || limit <= 0 ? maxPageSize : Math.min(limit, maxPageSize);
+        int fromBucket = Integer.MIN_VALUE;
+        ByteBuffer pagingState = null;
+        if (pageToken != null) {
+            ByteBuffer token = ByteBuffer.wrap(Base64.getUrlDecoder().decode(pageToken));
+            if (token.remaining() < Integer.BYTES) {
+                throw new IllegalArgumentException("Malformed page token");
+            }
+            fromBucket = token.getInt();
+            pagingState = token.hasRemaining() ? token.slice() : null;
+        }
+        int firstBucket = fromBucket;
+        ByteBuffer firstPagingState = pagingState;
+        return cache.articleVersion(articleId).thenCompose(version -> cache.getPage(articleId, version, size, pageToken)
+                .thenCompose(cached -> cached.isPresent()
+                        ? CompletableFuture.completedFuture(cached.get())
+                        : reactionDao.findBuckets(articleId, firstBucket)
+                        .thenCompose(buckets -> readBuckets(articleId, buckets, 0, size, firstPagingState))
+                        .thenCompose(page -> cache.putPage(articleId, version, size, pageToken, page).thenApply(ignored -> page))));
     }
 
-    public ReactionResponseDTO updateReaction(ReactionRequestDTO reactionRequestTo) {
-        Reaction reaction = reactionRepository.findById(reactionRequestTo.getId()).orElseThrow();
-        reaction.setContent(reactionRequestTo.getContent());
-        reaction.setArticleId(reactionRequestTo.getArticleId());
-        return mapper.toResponseDto(reactionRepository.save(reaction));
+    private CompletionStage<ReactionPageDTO> readBuckets(long articleId, List<Integer> buckets, int index, int size, ByteBuffer pagingState) {
+        if (index >= buckets.size()) {
+            return CompletableFuture.completedFuture(page(List.of(), null));
+        }
+        int bucket = buckets.get(index);
+        return reactionDao.findPageByArticle(articleId, bucket, size, pagingState).thenCompose(slice -> {
+            if (slice.hasNext()) {
+                return CompletableFuture.completedFuture(page(slice.getContent(), articleToken(bucket, nextPagingState(slice))));
+            }
+            if (index + 1 >= buckets.size()) {
+                return CompletableFuture.completedFuture(page(slice.getContent(), null));
+            }
+            if (slice.getContent().isEmpty()) {
+                return readBuckets(articleId, buckets, index + 1, size, null);
+            }
+            return CompletableFuture.completedFuture(page(slice.getContent(), articleToken(buckets.get(index + 1), null)));
+        });
+    }
+
+    private ReactionPageDTO page(List<Reaction> items, String nextPageToken) {
+        return ReactionPageDTO.builder()
+                .items(items.stream().map(mapper::toResponseDto).toList())
+                .nextPageToken(nextPageToken)
+                .build();
+    }
+
+    private static ByteBuffer nextPagingState(Slice<Reaction> slice) {
+        return ((CassandraPageRequest) slice.nextPageable()).getPagingState().duplicate();
+    }
+
+    private static String articleToken(int bucket, ByteBuffer pagingState) {
+        ByteBuffer token = ByteBuffer.allocate(Integer.BYTES + (pagingState != null ? pagingState.remaining() : 0));
+        token.putInt(bucket);
+        if (pagingState != null) {
+            token.put(pagingState);
+        }
+        return encode(token.flip());
+    }
+
+    private static String encode(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public CompletableFuture<ReactionResponseDTO> deleteReaction(Long id) {
+        return awaitFlushed(id)
+                .thenCompose(ignored -> reactionDao.delete(id))
+                .thenCompose(deleted -> {
+                    Reaction previous = deleted.orElseThrow(() -> notFound(id));
+                    counter.decrement(previous.getArticleId());
+                    return CompletableFuture.allOf(cache.evict(id), cache.invalidateArticle(previous.getArticleId()))
+                            .thenApply(ignored -> ReactionResponseDTO.builder().id(id).build());
+                })
+                .toCompletableFuture();
+    }
+
+    public CompletableFuture<ReactionResponseDTO> updateReaction(ReactionRequestDTO reactionRequestTo) {
+        Reaction reaction = Reaction.builder()
+                .id(reactionRequestTo.getId())
+                .articleId(reactionRequestTo.getArticleId())
+                .content(reactionRequestTo.getContent())
+                .build();
+        return awaitFlushed(reaction.getId())
+                .thenCompose(ignored -> reactionDao.update(reaction))
+                .thenCompose(updated -> {
+                    Reaction previous = updated.orElseThrow(() -> notFound(reaction.getId()));
+                    moderator.submit(reaction);
+                    ReactionResponseDTO response = mapper.toResponseDto(reaction);
+                    CompletableFuture<Void> previousArticle = CompletableFuture.completedFuture(null);
+                    if (!Objects.equals(previous.getArticleId(), reaction.getArticleId())) {
+                        counter.decrement(previous.getArticleId());
+                        counter.increment(reaction.getArticleId());
+                        previousArticle = cache.invalidateArticle(previous.getArticleId());
+                    }
+                    return CompletableFuture.allOf(cache.put(response), cache.invalidateArticle(reaction.getArticleId()), previousArticle)
+                            .thenApply(ignored -> response);
+                })
+                .toCompletableFuture();
+    }
+
+    public CompletableFuture<ReactionResponseDTO> get(Long id) {
+        return cache.get(id).thenCompose(cached -> cached.isPresent()
+                ? CompletableFuture.completedFuture(cached.get())
+                : reactionDao.findById(id)
+                .thenApply(reaction -> mapper.toResponseDto(reaction.orElseThrow(() -> notFound(id))))
+                .thenCompose(response -> cache.putIfAbsent(response).thenApply(ignored -> response)));
+    }
+
+    public CompletableFuture<ReactionCountDTO> countByArticle(Long articleId) {
+        return counter.count(articleId)
+                .thenApply(count -> ReactionCountDTO.builder().articleId(articleId).count(count).build());
+    }
+
+    private CompletableFuture<Void> awaitFlushed(Long id) {
+        return writeBehind.map(writer -> writer.awaitFlushed(id)).orElse(CompletableFuture.completedFuture(null));
     }
 
-    public ReactionResponseDTO get(Long id) {
-        return mapper.toResponseDto(reactionRepository.findById(id).orElseThrow());
+    private static EntityNotFoundException notFound(Long id) {
+        return new EntityNotFoundException("Reaction not found with id: " + id);
     }
 }
@@ -0,0 +1,191 @@
+package com.discussion.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 64-битные id в стиле Snowflake: 41 бит миллисекунд от EPOCH, 10 бит номера узла, 12 бит счётчика.
+ * Состояние (последняя миллисекунда и счётчик) хранится в одном AtomicLong и меняется CAS'ом,
+ * поэтому генерация не берёт блокировок и не обращается к другим узлам.
+ * <p>
+ * Если часы ушли назад, генератор продолжает с последней выданной миллисекунды, а не ждёт:
+ * id остаются возрастающими, метка времени временно опережает системную.
+ * То же происходит при исчерпании счётчика внутри одной миллисекунды.
+ * <p>
+ * Номер узла берётся из discussion.id.node-id, а если он не задан - арендуется в Redis:
+ * SET NX ключа номера с TTL lease-ttl, продление раз в lease-renew-interval. Пока аренда жива,
+ * номер не получит другой экземпляр. Если свободного номера нет или Redis недоступен, запуск
+ * завершается ошибкой. Если аренду продлить не удалось, id не выдаются после её срока;
+ * если номер успел занять другой экземпляр, арендуется новый.
+ * При продлении в Redis сохраняется последняя выданная миллисекунда номера, и следующий
+ * владелец начинает после неё, поэтому запуск с отставшими часами не повторяет старые id.
+ */
+@Component
+@Slf4j
+public class SnowflakeIdGenerator implements DisposableBean {
+    static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final String NODE_CURSOR_KEY = "discussion:id:node";
+    private static final String NODE_LEASE_KEY = "discussion:id:node-lease:";
+    private static final String NODE_MILLIS_KEY = "discussion:id:node-millis:";
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final long leaseTtl;
+    private final String leaseToken = UUID.randomUUID().toString();
+    private volatile long nodeId;
+    /** Unix-время в миллисекундах, до которого номер узла гарантированно наш. */
+    private volatile long leaseUntil;
+    private final boolean leased;
+    /** (миллисекунда от EPOCH << SEQUENCE_BITS) | счётчик последнего выданного id. */
+    private final AtomicLong state;
+    private final Counter clockRollbacks;
+
+    public SnowflakeIdGenerator(StringRedisTemplate redisTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${discussion.id.node-id:-1}") long configuredNodeId,
+                                @Value("${discussion.id.lease-ttl}") long leaseTtl) {
+        this.redisTemplate = redisTemplate;
+        this.leaseTtl = leaseTtl;
+        this.state = new AtomicLong((currentMillis() << SEQUENCE_BITS) - 1);
+        this.leased = configuredNodeId < 0;
+        if (leased) {
+            acquireNodeId();
+        } else {
+            this.nodeId = configuredNodeId & MAX_NODE_ID;
+            this.leaseUntil = Long.MAX_VALUE;
+        }
+        this.clockRollbacks = meterRegistry.counter("discussion.id.clock-rollbacks");
+        meterRegistry.gauge("discussion.id.node", this, generator -> generator.nodeId);
+        log.info("Snowflake id generator started with node id {}", nodeId);
+    }
+
+    /**
+     * @throws TransientDataAccessResourceException если аренда номера узла истекла и не продлена
+     */
+    public long nextId() {
+        if (System.currentTimeMillis() >= leaseUntil) {
+            throw new TransientDataAccessResourceException("Snowflake node id lease has expired");
+        }
+        while (true) {
+            long current = state.get();
+            long lastMillis = current >>> SEQUENCE_BITS;
+            long now = currentMillis();
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = current + 1;
+            } else {
+                next = (lastMillis + 1) << SEQUENCE_BITS;
+            }
+            if (state.compareAndSet(current, next)) {
+                if (now < lastMillis) {
+                    clockRollbacks.increment();
+                }
+                return compose(next >>> SEQUENCE_BITS, nodeId, next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * Момент создания id в миллисекундах Unix-времени.
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    static long compose(long millis, long nodeId, long sequence) {
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    private static long currentMillis() {
+        return System.currentTimeMillis() - EPOCH;
+    }
+
+    @Scheduled(fixedDelayString = "${discussion.id.lease-renew-interval}")
+    public void renewLease() {
+        if (!leased) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            Long renewed = redisTemplate.execute(RENEW, List.of(NODE_LEASE_KEY + nodeId), leaseToken, String.valueOf(leaseTtl));
+            if (renewed != null && renewed == 1) {
+                leaseUntil = started + leaseTtl;
+                storeLastMillis();
+                return;
+            }
+            log.error("Lease of snowflake node id {} was lost, acquiring another one", nodeId);
+            acquireNodeId();
+            log.info("Snowflake id generator continues with node id {}", nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Could not renew lease of snowflake node id {}", nodeId, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (!leased) {
+            return;
+        }
+        try {
+            storeLastMillis();
+            redisTemplate.execute(RELEASE, List.of(NODE_LEASE_KEY + nodeId), leaseToken);
+        } catch (RuntimeException e) {
+            log.warn("Could not release snowflake node id {}", nodeId, e);
+        }
+    }
+
+    /**
+     * Перебирает номера по кругу, начиная со следующего за последним выданным, и берёт первый свободный.
+     * Ошибки Redis пробрасываются: без аренды номер может совпасть с живым экземпляром.
+     */
+    private void acquireNodeId() {
+        Long cursor = redisTemplate.opsForValue().increment(NODE_CURSOR_KEY);
+        long first = cursor != null ? cursor : 0L;
+        for (long i = 0; i <= MAX_NODE_ID; i++) {
+            long candidate = (first + i) & MAX_NODE_ID;
+            long started = System.currentTimeMillis();
+            Boolean acquired = redisTemplate.opsForValue()
+                    .setIfAbsent(NODE_LEASE_KEY + candidate, leaseToken, Duration.ofMillis(leaseTtl));
+            if (Boolean.TRUE.equals(acquired)) {
+                String lastMillis = redisTemplate.opsForValue().get(NODE_MILLIS_KEY + candidate);
+                if (lastMillis != null) {
+                    long after = (Long.parseLong(lastMillis) + 1) << SEQUENCE_BITS;
+                    state.accumulateAndGet(after - 1, Math::max);
+                }
+                nodeId = candidate;
+                leaseUntil = started + leaseTtl;
+                return;
+            }
+        }
+        throw new IllegalStateException("All " + (MAX_NODE_ID + 1) + " snowflake node ids are leased");
+    }
+
+    private void storeLastMillis() {
+        redisTemplate.opsForValue().set(NODE_MILLIS_KEY + nodeId, String.valueOf(state.get() >>> SEQUENCE_BITS));
+    }
+}
@@ -0,0 +1,13 @@
+package com.discussion.writebehind;
+
+/**
+ * Когда записи журнала write-behind сбрасываются на диск.
+ */
+public enum FsyncPolicy {
+    /** После каждой записи, до ответа: ничего не теряется даже при отключении питания. */
+    ALWAYS,
+    /** Раз в discussion.write-behind.fsync-interval: при падении ОС теряется не больше интервала. */
+    INTERVAL,
+    /** Сброс выполняет ОС: запись переживает падение процесса, но не падение машины. */
+    NONE
+}
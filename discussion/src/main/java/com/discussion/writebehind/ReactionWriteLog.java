@@ -0,0 +1,191 @@
+package com.discussion.writebehind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Кольцевой журнал в одном отображённом в память файле фиксированного размера.
+ * Запись: длина (int), CRC32C (int), поколение (long), тело; CRC считается по поколению и телу.
+ * За последней записью всегда стоит нулевая длина. Если запись не помещается до конца файла,
+ * вместо длины ставится метка перехода (-1), и журнал продолжается с начала файла в следующем поколении.
+ * <p>
+ * Поколение и позиция, до которой записи уже в Cassandra, хранятся в соседнем файле .checkpoint.
+ * Место до checkpoint используется снова, не дожидаясь, пока журнал опустеет. Восстановление читает
+ * от checkpoint записи его поколения, а после метки перехода - следующего, поэтому записи, оставшиеся
+ * от прошлых кругов, не повторятся.
+ * Checkpoint сбрасывается на диск только перед тем, как освобождённое им место будет перезаписано.
+ * После сбоя могут повториться уже перенесённые записи, а ReactionDao пишет их с временем из id,
+ * и они не перекроют более поздние изменения и удаление.
+ */
+final class ReactionWriteLog implements Closeable {
+    private static final int HEADER = 2 * Integer.BYTES + Long.BYTES;
+    private static final int CHECKPOINT = Long.BYTES + Integer.BYTES;
+    private static final int WRAP = -1;
+
+    private final FileChannel channel;
+    private final FileChannel checkpointChannel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private long generation;
+    private int writePosition;
+    private Position checkpoint = new Position(0, 0);
+    /** Checkpoint, уже сброшенный на диск: писать можно только до него. */
+    private Position durableCheckpoint;
+
+    ReactionWriteLog(Path path, int capacity) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        this.capacity = capacity;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.checkpointChannel = FileChannel.open(path.resolveSibling(path.getFileName() + ".checkpoint"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer stored = ByteBuffer.allocate(CHECKPOINT);
+        if (checkpointChannel.read(stored, 0) == CHECKPOINT) {
+            stored.flip();
+            long storedGeneration = stored.getLong();
+            checkpoint = new Position(storedGeneration, Math.max(0, Math.min(stored.getInt(), capacity - Integer.BYTES)));
+        }
+        this.durableCheckpoint = checkpoint;
+    }
+
+    /**
+     * Тела записей после checkpoint. Позиция записи встаёт после последней целой записи.
+     */
+    synchronized List<Entry> replay() {
+        List<Entry> entries = new ArrayList<>();
+        long expected = checkpoint.generation();
+        int position = checkpoint.offset();
+        boolean wrapped = false;
+        while (position + Integer.BYTES <= capacity) {
+            int length = buffer.getInt(position);
+            if (length == WRAP && !wrapped) {
+                wrapped = true;
+                expected++;
+                position = 0;
+                continue;
+            }
+            if (length <= 0 || position + HEADER + length + Integer.BYTES > capacity) {
+                break;
+            }
+            long recordGeneration = buffer.getLong(position + 2 * Integer.BYTES);
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER, payload);
+            if (recordGeneration != expected || crc(recordGeneration, payload) != buffer.getInt(position + Integer.BYTES)) {
+                break;
+            }
+            position += HEADER + length;
+            entries.add(new Entry(payload, new Position(expected, position)));
+        }
+        generation = expected;
+        writePosition = position;
+        terminate();
+        return entries;
+    }
+
+    /**
+     * @return позиция конца записи или null, если до checkpoint не осталось места
+     */
+    synchronized Position append(byte[] payload, boolean force) throws IOException {
+        int size = HEADER + payload.length;
+        Placement placement = place(size, durableCheckpoint);
+        if (placement == Placement.NONE && !checkpoint.equals(durableCheckpoint)
+                && place(size, checkpoint) != Placement.NONE) {
+            checkpointChannel.force(false);
+            durableCheckpoint = checkpoint;
+            placement = place(size, checkpoint);
+        }
+        if (placement == Placement.NONE) {
+            return null;
+        }
+        int wrapAt = -1;
+        if (placement == Placement.WRAP) {
+            wrapAt = writePosition;
+            generation++;
+            writePosition = 0;
+        }
+        int start = writePosition;
+        int end = start + size;
+        buffer.putInt(start + Integer.BYTES, crc(generation, payload));
+        buffer.putLong(start + 2 * Integer.BYTES, generation);
+        buffer.put(start + HEADER, payload);
+        buffer.putInt(end, 0);
+        buffer.putInt(start, payload.length);
+        if (wrapAt >= 0) {
+            buffer.putInt(wrapAt, WRAP);
+        }
+        writePosition = end;
+        if (force) {
+            buffer.force(start, end + Integer.BYTES - start);
+            if (wrapAt >= 0) {
+                buffer.force(wrapAt, Integer.BYTES);
+            }
+        }
+        return new Position(generation, end);
+    }
+
+    synchronized void force() {
+        buffer.force();
+    }
+
+    /**
+     * Отмечает, что записи до position перенесены в Cassandra. На диск не сбрасывается, см. append.
+     */
+    synchronized void checkpoint(Position position) throws IOException {
+        checkpointChannel.write(ByteBuffer.allocate(CHECKPOINT)
+                .putLong(0, position.generation())
+                .putInt(Long.BYTES, position.offset()), 0);
+        checkpoint = position;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        checkpointChannel.force(true);
+        checkpointChannel.close();
+        channel.close();
+    }
+
+    /**
+     * Куда встанет запись размера size, если писать можно только до limit. После записи
+     * должно остаться место для нулевой длины или метки перехода.
+     */
+    private Placement place(int size, Position limit) {
+        if (generation == limit.generation()) {
+            if (writePosition + size + Integer.BYTES <= capacity) {
+                return Placement.HERE;
+            }
+            return size + Integer.BYTES <= limit.offset() ? Placement.WRAP : Placement.NONE;
+        }
+        return writePosition + size + Integer.BYTES <= limit.offset() ? Placement.HERE : Placement.NONE;
+    }
+
+    private void terminate() {
+        buffer.putInt(writePosition, 0);
+    }
+
+    private static int crc(long generation, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, generation));
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private enum Placement {
+        HERE, WRAP, NONE
+    }
+
+    record Position(long generation, int offset) {
+    }
+
+    record Entry(byte[] payload, Position end) {
+    }
+}
@@ -0,0 +1,203 @@
+package com.discussion.writebehind;
+
+import com.discussion.entities.Reaction;
+import com.discussion.moderation.ReactionModerator;
+import com.discussion.repository.ReactionDao;
+import com.discussion.service.ReactionCache;
+import com.publisher.kafka.ReactionMessage;
+import com.publisher.kafka.ReactionMessageCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Режим write-behind для создания реакций: реакция записывается в локальный журнал
+ * и сразу подтверждается, а в Cassandra переносится пакетами раз в flush-interval
+ * (ReactionDao.insertAll: строки одной партиции reactions_by_article - одним batch'ем).
+ * После переноса реакция уходит на модерацию, и кэш страниц её статьи сбрасывается.
+ * При старте записи журнала после checkpoint переносятся повторно: INSERT пишется с временем из id
+ * и не перекрывает изменения и удаление, сделанные после первого переноса.
+ * Если журнал заполнен или не пишется, реакция записывается в Cassandra сразу.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "discussion.write-behind.enabled", havingValue = "true")
+public class WriteBehindReactionWriter implements DisposableBean {
+    private final ReactionDao reactionDao;
+    private final ReactionModerator moderator;
+    private final ReactionCache cache;
+    private final ReactionWriteLog writeLog;
+    private final FsyncPolicy fsyncPolicy;
+    private final int batchSize;
+    private final Deque<PendingWrite> pending = new ArrayDeque<>();
+    private final Map<Long, CompletableFuture<Void>> unflushed = new ConcurrentHashMap<>();
+    private final Timer appendTimer;
+    private final Counter overflows;
+
+    public WriteBehindReactionWriter(ReactionDao reactionDao,
+                                     ReactionModerator moderator,
+                                     ReactionCache cache,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${discussion.write-behind.path}") Path path,
+                                     @Value("${discussion.write-behind.segment-size}") int segmentSize,
+                                     @Value("${discussion.write-behind.fsync}") FsyncPolicy fsyncPolicy,
+                                     @Value("${discussion.write-behind.batch-size}") int batchSize) throws IOException {
+        this.reactionDao = reactionDao;
+        this.moderator = moderator;
+        this.cache = cache;
+        this.writeLog = new ReactionWriteLog(path, segmentSize);
+        this.fsyncPolicy = fsyncPolicy;
+        this.batchSize = batchSize;
+        this.appendTimer = meterRegistry.timer("discussion.write-behind.append", "fsync", fsyncPolicy.name());
+        this.overflows = meterRegistry.counter("discussion.write-behind.overflows");
+        meterRegistry.gauge("discussion.write-behind.pending", unflushed, Map::size);
+        for (ReactionWriteLog.Entry entry : writeLog.replay()) {
+            enqueue(toReaction(ReactionMessageCodec.decode(entry.payload())), entry.end());
+        }
+        log.info("Write-behind log {} opened with fsync policy {}, {} reactions to replay", path, fsyncPolicy, pending.size());
+    }
+
+    /**
+     * Завершается, когда реакция записана в журнал с учётом политики fsync.
+     */
+    public CompletableFuture<Reaction> append(Reaction reaction) {
+        long start = System.nanoTime();
+        byte[] payload = ReactionMessageCodec.encode(ReactionMessage.builder()
+                .id(reaction.getId())
+                .articleId(reaction.getArticleId())
+                .content(reaction.getContent())
+                .build());
+        ReactionWriteLog.Position end;
+        synchronized (pending) {
+            try {
+                end = writeLog.append(payload, fsyncPolicy == FsyncPolicy.ALWAYS);
+            } catch (IOException e) {
+                log.warn("Could not append reaction {} to the write-behind log", reaction.getId(), e);
+                end = null;
+            }
+            if (end != null) {
+                enqueue(reaction, end);
+            }
+        }
+        if (end == null) {
+            overflows.increment();
+            return reactionDao.insert(reaction)
+                    .thenApply(created -> {
+                        afterFlush(created);
+                        return created;
+                    })
+                    .toCompletableFuture();
+        }
+        appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return CompletableFuture.completedFuture(reaction);
+    }
+
+    /**
+     * Завершается, когда реакция с этим id есть в Cassandra. Изменение и удаление ждут его,
+     * чтобы не получить 404 для реакции, которая ещё лежит в журнале.
+     */
+    public CompletableFuture<Void> awaitFlushed(long id) {
+        return unflushed.getOrDefault(id, CompletableFuture.completedFuture(null));
+    }
+
+    @Scheduled(fixedDelayString = "${discussion.write-behind.flush-interval}")
+    public void flush() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        synchronized (pending) {
+            while (batch.size() < batchSize && !pending.isEmpty()) {
+                batch.add(pending.poll());
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            reactionDao.insertAll(batch.stream().map(PendingWrite::reaction).toList()).toCompletableFuture().join();
+        } catch (RuntimeException e) {
+            log.warn("Write-behind flush of {} reactions failed, will retry", batch.size(), e);
+            synchronized (pending) {
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    pending.addFirst(batch.get(i));
+                }
+            }
+            return;
+        }
+        try {
+            synchronized (pending) {
+                writeLog.checkpoint(batch.get(batch.size() - 1).end());
+            }
+        } catch (IOException e) {
+            log.warn("Could not store write-behind checkpoint", e);
+        }
+        for (PendingWrite write : batch) {
+            afterFlush(write.reaction());
+            CompletableFuture<Void> flushed = unflushed.remove(write.reaction().getId());
+            if (flushed != null) {
+                flushed.complete(null);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${discussion.write-behind.fsync-interval}")
+    public void forceInterval() {
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            writeLog.force();
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        int before;
+        int after = pendingCount();
+        do {
+            before = after;
+            flush();
+            after = pendingCount();
+        } while (after > 0 && after < before);
+        writeLog.close();
+    }
+
+    private int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    private void enqueue(Reaction reaction, ReactionWriteLog.Position end) {
+        pending.add(new PendingWrite(reaction, end));
+        unflushed.put(reaction.getId(), new CompletableFuture<>());
+    }
+
+    private void afterFlush(Reaction reaction) {
+        moderator.submit(reaction);
+        cache.invalidateArticle(reaction.getArticleId());
+    }
+
+    private static Reaction toReaction(ReactionMessage message) {
+        return Reaction.builder()
+                .id(message.getId())
+                .articleId(message.getArticleId())
+                .content(message.getContent())
+                .build();
+    }
+
+    private record PendingWrite(Reaction reaction, ReactionWriteLog.Position end) {
+    }
+}
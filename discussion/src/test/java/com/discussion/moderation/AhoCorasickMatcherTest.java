@@ -0,0 +1,73 @@
+package com.discussion.moderation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AhoCorasickMatcherTest {
+
+    @Test
+    void findsPatternsAnywhereIgnoringCase() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of("he", "she", "hers", "Спам"));
+
+        assertTrue(matcher.matches("ushers"));
+        assertTrue(matcher.matches("HE"));
+        assertTrue(matcher.matches("это СПАМ!"));
+        assertFalse(matcher.matches("abc"));
+        assertFalse(matcher.matches(""));
+    }
+
+    @Test
+    void followsFailLinksIntoShorterSuffix() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of("abcd", "bce"));
+
+        assertTrue(matcher.matches("abce"));
+        assertFalse(matcher.matches("abcx"));
+    }
+
+    @Test
+    void ignoresBlankPatterns() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of("", "  ", "x"));
+
+        assertEquals(1, matcher.patternCount());
+        assertFalse(matcher.matches("abc"));
+        assertTrue(matcher.matches("xyz"));
+    }
+
+    @Test
+    void emptyMatcherMatchesNothing() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of());
+
+        assertFalse(matcher.matches("anything"));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    void agreesWithContains() {
+        Random random = new Random(42);
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            patterns.add(randomText(random, 2 + random.nextInt(4)));
+        }
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(patterns);
+        for (int i = 0; i < 2000; i++) {
+            String text = randomText(random, random.nextInt(40));
+            boolean expected = patterns.stream().anyMatch(text::contains);
+            assertEquals(expected, matcher.matches(text), text);
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(4)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,126 @@
+package com.discussion.service;
+
+import com.discussion.dto.ReactionMapper;
+import com.discussion.dto.ReactionMapperImpl;
+import com.discussion.dto.ReactionRequestDTO;
+import com.discussion.dto.ReactionResponseDTO;
+import com.publisher.kafka.ReactionMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.web.bind.annotation.RequestMethod;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReactionCommandHandlerTest {
+    /** Содержимое Redis, общее для всех экземпляров IdempotencyStore в тесте. */
+    private final Map<String, byte[]> redis = new ConcurrentHashMap<>();
+    private final CountingReactionService reactionService = new CountingReactionService();
+    private final ReactionMapper mapper = new ReactionMapperImpl();
+
+    @Test
+    void redeliveredCreateReturnsFirstReplyWithoutSecondInsert() {
+        ReactionCommandHandler handler = handler();
+
+        ReactionMessage first = handler.handle("c-1", create()).join();
+        ReactionMessage second = handler.handle("c-1", create()).join();
+
+        assertEquals(1, reactionService.created.get());
+        assertEquals(201, second.getStatus());
+        assertEquals(first, second);
+    }
+
+    @Test
+    void createRedeliveredToAnotherInstanceIsReplayedFromRedis() {
+        ReactionMessage first = handler().handle("c-1", create()).join();
+        ReactionMessage second = handler().handle("c-1", create()).join();
+
+        assertEquals(1, reactionService.created.get());
+        assertEquals(first, second);
+    }
+
+    @Test
+    void createWithNewCorrelationIdIsExecuted() {
+        ReactionCommandHandler handler = handler();
+
+        handler.handle("c-1", create()).join();
+        ReactionMessage second = handler.handle("c-2", create()).join();
+
+        assertEquals(2, reactionService.created.get());
+        assertEquals(2L, second.getId());
+    }
+
+    private ReactionCommandHandler handler() {
+        IdempotencyStore store = new IdempotencyStore(redisTemplate(), new SimpleMeterRegistry(), 16, 60_000);
+        return new ReactionCommandHandler(reactionService, mapper, store);
+    }
+
+    private static ReactionMessage create() {
+        return ReactionMessage.builder()
+                .method(RequestMethod.POST)
+                .articleId(7L)
+                .content("hello")
+                .build();
+    }
+
+    private ReactiveRedisTemplate<String, byte[]> redisTemplate() {
+        ReactiveValueOperations<String, byte[]> values = proxy(ReactiveValueOperations.class, (target, method, args) -> switch (method.getName()) {
+            case "get" -> Mono.justOrEmpty(redis.get((String) args[0]));
+            case "set" -> {
+                redis.put((String) args[0], (byte[]) args[1]);
+                yield Mono.just(true);
+            }
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        RedisSerializationContext<String, byte[]> context = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.byteArray())
+                .build();
+        ReactiveRedisConnectionFactory connectionFactory = proxy(ReactiveRedisConnectionFactory.class, (target, method, args) -> {
+            throw new UnsupportedOperationException(method.getName());
+        });
+        return new ReactiveRedisTemplate<>(connectionFactory, context) {
+            @Override
+            public ReactiveValueOperations<String, byte[]> opsForValue() {
+                return values;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * Вместо вставки в Cassandra только считает вызовы create.
+     */
+    private static class CountingReactionService extends ReactionService {
+        private final AtomicLong created = new AtomicLong();
+
+        CountingReactionService() {
+            super(null, null, null, null, null, null, null, 0);
+        }
+
+        @Override
+        public CompletableFuture<ReactionResponseDTO> create(ReactionRequestDTO request) {
+            return CompletableFuture.completedFuture(ReactionResponseDTO.builder()
+                    .id(created.incrementAndGet())
+                    .articleId(request.getArticleId())
+                    .content(request.getContent())
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.discussion.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+    private static final long NODE_ID = 5;
+
+    private final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(null, new SimpleMeterRegistry(), NODE_ID, 30_000);
+
+    @Test
+    void idsIncreaseStrictly() {
+        long previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long next = generator.nextId();
+            assertTrue(next > previous, () -> next + " after " + previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void idsCarryNodeAndCreationTime() {
+        long before = System.currentTimeMillis();
+        long id = generator.nextId();
+        long after = System.currentTimeMillis();
+
+        assertEquals(NODE_ID, (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID);
+        long created = SnowflakeIdGenerator.timestampOf(id);
+        assertTrue(created >= before && created <= after + 1, () -> created + " not in [" + before + ", " + after + "]");
+    }
+
+    @Test
+    void idsAreUniqueAcrossThreads() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        List<Callable<List<Long>>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            tasks.add(() -> {
+                List<Long> ids = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(generator.nextId());
+                }
+                return ids;
+            });
+        }
+        Set<Long> unique = new HashSet<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (Future<List<Long>> ids : executor.invokeAll(tasks)) {
+                unique.addAll(ids.get());
+            }
+        }
+
+        assertEquals(threads * perThread, unique.size());
+    }
+
+    @Test
+    void composesFieldsInOrder() {
+        long id = SnowflakeIdGenerator.compose(3, 2, 1);
+
+        assertEquals(SnowflakeIdGenerator.EPOCH + 3, SnowflakeIdGenerator.timestampOf(id));
+        assertTrue(SnowflakeIdGenerator.compose(3, 2, 2) > id);
+        assertTrue(SnowflakeIdGenerator.compose(4, 0, 0) > SnowflakeIdGenerator.compose(3, SnowflakeIdGenerator.MAX_NODE_ID, SnowflakeIdGenerator.SEQUENCE_MASK));
+    }
+}
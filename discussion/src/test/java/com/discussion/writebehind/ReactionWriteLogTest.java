@@ -0,0 +1,119 @@
+package com.discussion.writebehind;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReactionWriteLogTest {
+    private static final int CAPACITY = 256;
+    /** Длина, CRC и поколение перед телом записи. */
+    private static final int HEADER = 16;
+    /** Три записи такого размера помещаются в файл, четвёртая - уже нет. */
+    private static final int RECORD = 60;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysRecordsAfterCheckpoint() throws IOException {
+        Path path = directory.resolve("reactions.wal");
+        try (ReactionWriteLog log = open(path)) {
+            ReactionWriteLog.Position first = log.append(new byte[]{1, 2, 3}, false);
+            log.append(new byte[]{4}, true);
+            log.checkpoint(first);
+        }
+
+        try (ReactionWriteLog log = new ReactionWriteLog(path, CAPACITY)) {
+            List<ReactionWriteLog.Entry> entries = log.replay();
+            assertEquals(1, entries.size());
+            assertArrayEquals(new byte[]{4}, entries.get(0).payload());
+        }
+    }
+
+    @Test
+    void wrapsIntoFlushedSpaceBeforeDrain() throws IOException {
+        Path path = directory.resolve("reactions.wal");
+        try (ReactionWriteLog log = open(path)) {
+            log.append(record(1), false);
+            ReactionWriteLog.Position second = log.append(record(2), false);
+            log.append(record(3), false);
+            log.checkpoint(second);
+            ReactionWriteLog.Position wrapped = log.append(record(4), true);
+            assertEquals(new ReactionWriteLog.Position(1, HEADER + RECORD), wrapped);
+        }
+
+        try (ReactionWriteLog log = new ReactionWriteLog(path, CAPACITY)) {
+            List<ReactionWriteLog.Entry> entries = log.replay();
+            assertEquals(2, entries.size());
+            assertArrayEquals(record(3), entries.get(0).payload());
+            assertArrayEquals(record(4), entries.get(1).payload());
+        }
+    }
+
+    @Test
+    void doesNotReplayRecordsOfPreviousLap() throws IOException {
+        Path path = directory.resolve("reactions.wal");
+        try (ReactionWriteLog log = open(path)) {
+            log.append(record(1), false);
+            ReactionWriteLog.Position second = log.append(record(2), false);
+            log.append(record(3), false);
+            log.checkpoint(second);
+            log.checkpoint(log.append(record(4), true));
+        }
+
+        try (ReactionWriteLog log = new ReactionWriteLog(path, CAPACITY)) {
+            assertTrue(log.replay().isEmpty());
+        }
+    }
+
+    @Test
+    void stopsAtCorruptedRecord() throws IOException {
+        Path path = directory.resolve("reactions.wal");
+        int secondStart;
+        try (ReactionWriteLog log = open(path)) {
+            secondStart = log.append(new byte[]{1}, false).offset();
+            log.append(new byte[]{2}, true);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(secondStart + HEADER);
+            file.write(9);
+        }
+
+        try (ReactionWriteLog log = new ReactionWriteLog(path, CAPACITY)) {
+            List<ReactionWriteLog.Entry> entries = log.replay();
+            assertEquals(1, entries.size());
+            assertArrayEquals(new byte[]{1}, entries.get(0).payload());
+        }
+    }
+
+    @Test
+    void rejectsRecordThatDoesNotFit() throws IOException {
+        try (ReactionWriteLog log = open(directory.resolve("reactions.wal"))) {
+            assertNotNull(log.append(new byte[CAPACITY / 2], false));
+            assertNull(log.append(new byte[CAPACITY / 2], false));
+        }
+    }
+
+    private static byte[] record(int value) {
+        byte[] payload = new byte[RECORD];
+        Arrays.fill(payload, (byte) value);
+        return payload;
+    }
+
+    private static ReactionWriteLog open(Path path) throws IOException {
+        ReactionWriteLog log = new ReactionWriteLog(path, CAPACITY);
+        log.replay();
+        return log;
+    }
+}
@@ -0,0 +1,34 @@
+package com.publisher.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Рассылает через Redis pub/sub, какой ключ L1 устарел. Сообщение: "экземпляр\nкэш[\nключ]",
+ * без ключа - очистить весь кэш. Свои сообщения получатель пропускает по имени экземпляра.
+ */
+@Slf4j
+public class CacheInvalidationPublisher {
+    public static final String CHANNEL = "publisher:cache-invalidation";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String instanceId;
+
+    public CacheInvalidationPublisher(StringRedisTemplate redisTemplate, String instanceId) {
+        this.redisTemplate = redisTemplate;
+        this.instanceId = instanceId;
+    }
+
+    public void publish(String cacheName, String key) {
+        String message = instanceId + '\n' + cacheName + (key != null ? '\n' + key : "");
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish cache invalidation for {}::{}", cacheName, key, e);
+        }
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+}
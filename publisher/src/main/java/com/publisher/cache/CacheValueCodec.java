@@ -0,0 +1,12 @@
+package com.publisher.cache;
+
+/**
+ * Компактное двоичное представление значения одного кэша.
+ * Необязательные поля кодек отмечает битовой маской в начале записи.
+ */
+public interface CacheValueCodec<T> {
+
+    void write(CompactOutput out, T value);
+
+    T read(CompactInput in);
+}
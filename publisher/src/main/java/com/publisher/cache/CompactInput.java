@@ -0,0 +1,52 @@
+package com.publisher.cache;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Чтение формата {@link CompactOutput}.
+ */
+public final class CompactInput {
+    private final byte[] bytes;
+    private int position;
+
+    public CompactInput(byte[] bytes, int offset) {
+        this.bytes = bytes;
+        this.position = offset;
+    }
+
+    public int readByte() {
+        check(1);
+        return bytes[position++] & 0xFF;
+    }
+
+    public long readVarLong() {
+        long v = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 63) {
+                throw new SerializationException("Varint is too long");
+            }
+            b = readByte();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public String readString() {
+        int length = (int) readVarLong();
+        check(length);
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private void check(int length) {
+        if (length < 0 || position + length > bytes.length) {
+            throw new SerializationException("Truncated cache value");
+        }
+    }
+}
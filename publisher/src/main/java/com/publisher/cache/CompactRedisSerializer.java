@@ -0,0 +1,153 @@
+package com.publisher.cache;
+
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Сериализатор значений кэша Redis на {@link CacheValueCodec}.
+ * Первый байт - формат: RAW, DEFLATE (сжатое тело, перед ним исходная длина varint)
+ * или NULL для закэшированного null. Сжимаются значения больше compress-threshold байт,
+ * если сжатие действительно уменьшает их. Бит STAMPED в первом байте означает {@link StampedValue}:
+ * за первым байтом идут expiresAt и computeMillis varint, дальше тело в указанном формате.
+ */
+public class CompactRedisSerializer<T> implements RedisSerializer<Object> {
+    static final int RAW = 0;
+    static final int DEFLATE = 1;
+    static final int NULL = 2;
+    static final int STAMPED = 0x80;
+
+    private final Class<T> type;
+    private final CacheValueCodec<T> codec;
+    private final int compressThreshold;
+
+    public CompactRedisSerializer(Class<T> type, CacheValueCodec<T> codec, int compressThreshold) {
+        this.type = type;
+        this.codec = codec;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) {
+        if (value instanceof StampedValue stamped) {
+            CompactOutput header = new CompactOutput()
+                    .writeVarLong(stamped.expiresAt())
+                    .writeVarLong(stamped.computeMillis());
+            byte[] prefix = header.toByteArray();
+            byte[] body = serialize(stamped.value());
+            byte[] result = new byte[prefix.length + body.length];
+            result[0] = (byte) (body[0] | STAMPED);
+            System.arraycopy(prefix, 0, result, 1, prefix.length);
+            System.arraycopy(body, 1, result, prefix.length + 1, body.length - 1);
+            return result;
+        }
+        if (value == null || value instanceof NullValue) {
+            return new byte[]{NULL};
+        }
+        if (!type.isInstance(value)) {
+            throw new SerializationException("Cannot serialize " + value.getClass().getName() + " as " + type.getName());
+        }
+        CompactOutput body = new CompactOutput();
+        codec.write(body, type.cast(value));
+        byte[] raw = body.toByteArray();
+        if (raw.length > compressThreshold) {
+            byte[] compressed = deflate(raw);
+            CompactOutput header = new CompactOutput().writeByte(DEFLATE).writeVarLong(raw.length);
+            byte[] prefix = header.toByteArray();
+            if (prefix.length + compressed.length < raw.length + 1) {
+                byte[] result = new byte[prefix.length + compressed.length];
+                System.arraycopy(prefix, 0, result, 0, prefix.length);
+                System.arraycopy(compressed, 0, result, prefix.length, compressed.length);
+                return result;
+            }
+        }
+        byte[] result = new byte[raw.length + 1];
+        result[0] = RAW;
+        System.arraycopy(raw, 0, result, 1, raw.length);
+        return result;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if ((bytes[0] & STAMPED) != 0) {
+            CompactInput header = new CompactInput(bytes, 1);
+            long expiresAt = header.readVarLong();
+            long computeMillis = header.readVarLong();
+            int offset = 1 + sizeOfVarLong(expiresAt) + sizeOfVarLong(computeMillis);
+            Object value = read(bytes[0] & 0x7F, bytes, offset);
+            return new StampedValue(value == NullValue.INSTANCE ? null : value, expiresAt, computeMillis);
+        }
+        return read(bytes[0], bytes, 1);
+    }
+
+    private Object read(int format, byte[] bytes, int offset) {
+        return switch (format) {
+            case RAW -> codec.read(new CompactInput(bytes, offset));
+            case DEFLATE -> {
+                CompactInput header = new CompactInput(bytes, offset);
+                int length = (int) header.readVarLong();
+                yield codec.read(new CompactInput(inflate(bytes, offset + sizeOfVarLong(length), length), 0));
+            }
+            case NULL -> NullValue.INSTANCE;
+            default -> throw new SerializationException("Unknown cache value format: " + format);
+        };
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] chunk = new byte[Math.max(64, raw.length / 2)];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            byte[] raw = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new SerializationException("Truncated compressed cache value");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new SerializationException("Malformed compressed cache value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int sizeOfVarLong(long value) {
+        long v = (value << 1) ^ (value >> 63);
+        int size = 1;
+        while ((v & ~0x7FL) != 0) {
+            v >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,134 @@
+package com.publisher.cache;
+
+import com.publisher.dto.out.ArticleResponseTo;
+import com.publisher.dto.out.CreatorResponseTo;
+import com.publisher.dto.out.ReactionResponseTo;
+import com.publisher.dto.out.StickerResponseTo;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Кодеки DTO, которые лежат в кэшах. Запись начинается с битовой маски непустых полей,
+ * дальше идут только непустые поля в порядке объявления. Порядок полей - часть формата:
+ * новое поле добавляется в конец со следующим битом.
+ */
+public final class ResponseCodecs {
+
+    public static final CacheValueCodec<ArticleResponseTo> ARTICLE = new CacheValueCodec<>() {
+        @Override
+        public void write(CompactOutput out, ArticleResponseTo value) {
+            out.writeByte(mask(value.getId(), value.getCreatorId(), value.getTitle(), value.getContent(),
+                    value.getCreated(), value.getModified()));
+            if (value.getId() != null) out.writeVarLong(value.getId());
+            if (value.getCreatorId() != null) out.writeVarLong(value.getCreatorId());
+            if (value.getTitle() != null) out.writeString(value.getTitle());
+            if (value.getContent() != null) out.writeString(value.getContent());
+            if (value.getCreated() != null) writeTime(out, value.getCreated());
+            if (value.getModified() != null) writeTime(out, value.getModified());
+        }
+
+        @Override
+        public ArticleResponseTo read(CompactInput in) {
+            int mask = in.readByte();
+            ArticleResponseTo value = new ArticleResponseTo();
+            if ((mask & 1) != 0) value.setId(in.readVarLong());
+            if ((mask & 2) != 0) value.setCreatorId(in.readVarLong());
+            if ((mask & 4) != 0) value.setTitle(in.readString());
+            if ((mask & 8) != 0) value.setContent(in.readString());
+            if ((mask & 16) != 0) value.setCreated(readTime(in));
+            if ((mask & 32) != 0) value.setModified(readTime(in));
+            return value;
+        }
+    };
+
+    public static final CacheValueCodec<CreatorResponseTo> CREATOR = new CacheValueCodec<>() {
+        @Override
+        public void write(CompactOutput out, CreatorResponseTo value) {
+            out.writeByte(mask(value.getId(), value.getLogin(), value.getPassword(), value.getFirstname(),
+                    value.getLastname(), value.getRole(), value.getVersion()));
+            if (value.getId() != null) out.writeVarLong(value.getId());
+            if (value.getLogin() != null) out.writeString(value.getLogin());
+            if (value.getPassword() != null) out.writeString(value.getPassword());
+            if (value.getFirstname() != null) out.writeString(value.getFirstname());
+            if (value.getLastname() != null) out.writeString(value.getLastname());
+            if (value.getRole() != null) out.writeString(value.getRole());
+            if (value.getVersion() != null) out.writeVarLong(value.getVersion());
+        }
+
+        @Override
+        public CreatorResponseTo read(CompactInput in) {
+            int mask = in.readByte();
+            CreatorResponseTo value = new CreatorResponseTo();
+            if ((mask & 1) != 0) value.setId(in.readVarLong());
+            if ((mask & 2) != 0) value.setLogin(in.readString());
+            if ((mask & 4) != 0) value.setPassword(in.readString());
+            if ((mask & 8) != 0) value.setFirstname(in.readString());
+            if ((mask & 16) != 0) value.setLastname(in.readString());
+            if ((mask & 32) != 0) value.setRole(in.readString());
+            if ((mask & 64) != 0) value.setVersion(in.readVarLong());
+            return value;
+        }
+    };
+
+    public static final CacheValueCodec<StickerResponseTo> STICKER = new CacheValueCodec<>() {
+        @Override
+        public void write(CompactOutput out, StickerResponseTo value) {
+            out.writeByte(mask(value.getId(), value.getName()));
+            if (value.getId() != null) out.writeVarLong(value.getId());
+            if (value.getName() != null) out.writeString(value.getName());
+        }
+
+        @Override
+        public StickerResponseTo read(CompactInput in) {
+            int mask = in.readByte();
+            StickerResponseTo value = new StickerResponseTo();
+            if ((mask & 1) != 0) value.setId(in.readVarLong());
+            if ((mask & 2) != 0) value.setName(in.readString());
+            return value;
+        }
+    };
+
+    public static final CacheValueCodec<ReactionResponseTo> REACTION = new CacheValueCodec<>() {
+        @Override
+        public void write(CompactOutput out, ReactionResponseTo value) {
+            out.writeByte(mask(value.getId(), value.getArticleId(), value.getContent()));
+            if (value.getId() != null) out.writeVarLong(value.getId());
+            if (value.getArticleId() != null) out.writeVarLong(value.getArticleId());
+            if (value.getContent() != null) out.writeString(value.getContent());
+        }
+
+        @Override
+        public ReactionResponseTo read(CompactInput in) {
+            int mask = in.readByte();
+            ReactionResponseTo value = new ReactionResponseTo();
+            if ((mask & 1) != 0) value.setId(in.readVarLong());
+            if ((mask & 2) != 0) value.setArticleId(in.readVarLong());
+            if ((mask & 4) != 0) value.setContent(in.readString());
+            return value;
+        }
+    };
+
+    private ResponseCodecs() {
+    }
+
+    private static int mask(Object... fields) {
+        int mask = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    private static void writeTime(CompactOutput out, LocalDateTime time) {
+        out.writeVarLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeVarLong(time.getNano());
+    }
+
+    private static LocalDateTime readTime(CompactInput in) {
+        long seconds = in.readVarLong();
+        return LocalDateTime.ofEpochSecond(seconds, (int) in.readVarLong(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,23 @@
+package com.publisher.cache;
+
+import java.io.Serializable;
+
+/**
+ * Значение кэша с логическим сроком годности expiresAt (мс эпохи) и временем его вычисления
+ * computeMillis. Физический TTL записи в Redis длиннее логического на окно stale-while-revalidate:
+ * после expiresAt запись ещё отдаётся, пока её обновляет один фоновый загрузчик.
+ */
+public record StampedValue(Object value, long expiresAt, long computeMillis) implements Serializable {
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    /**
+     * Вероятностное раннее обновление (XFetch): чем дороже вычисление и ближе срок,
+     * тем вероятнее, что именно этот запрос обновит значение до истечения.
+     */
+    public boolean shouldRefreshEarly(long now, double beta, double random) {
+        return now - computeMillis * beta * Math.log(random) >= expiresAt;
+    }
+}
@@ -0,0 +1,370 @@
+package com.publisher.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Кэш из двух уровней: L1 - Caffeine в памяти процесса (W-TinyLFU, ограничение по размеру и TTL),
+ * L2 - Redis. Чтение сначала идёт в L1, промах читает L2 и заполняет L1.
+ * Запись и удаление меняют оба уровня и рассылают остальным экземплярам сообщение,
+ * по которому те удаляют ключ из своего L1.
+ * <p>
+ * Ключи L1 - строковое представление ключа, так же ключ записывается в Redis и в сообщение.
+ * <p>
+ * Оба уровня хранят {@link StampedValue} с логическим сроком годности. Чтение с загрузчиком
+ * ({@code @Cacheable(sync = true)}) защищено от лавины запросов при истечении:
+ * <ul>
+ *     <li>промахи по одному ключу объединяются - загрузчик выполняет один запрос, остальные ждут его результат;</li>
+ *     <li>незадолго до срока значение с вероятностью XFetch обновляется в фоне, пока остальные читают старое;</li>
+ *     <li>после срока запись ещё живёт в Redis окно stale-while-revalidate и отдаётся, пока её обновляет
+ *     один фоновый загрузчик.</li>
+ * </ul>
+ * Чтение без загрузчика считает просроченное значение промахом.
+ * <p>
+ * Закэшированный null (сущность не найдена) живёт negative-ttl, не обновляется заранее
+ * и после срока сразу считается промахом: создание записи не должно ждать окна stale.
+ */
+@Slf4j
+public class TwoTierCache implements Cache {
+    private final Cache redis;
+    private final com.github.benmanes.caffeine.cache.Cache<String, StampedValue> local;
+    private final CacheInvalidationPublisher invalidations;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final double beta;
+    private final Executor refresher;
+    private final ConcurrentMap<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Counter missLoads;
+    private final Counter refreshLoads;
+    private final Counter coalescedLoads;
+    private final Counter staleServed;
+
+    public TwoTierCache(Cache redis,
+                        com.github.benmanes.caffeine.cache.Cache<String, StampedValue> local,
+                        CacheInvalidationPublisher invalidations,
+                        MeterRegistry meterRegistry,
+                        long ttlMillis,
+                        long negativeTtlMillis,
+                        double beta,
+                        Executor refresher) {
+        this.redis = redis;
+        this.local = local;
+        this.invalidations = invalidations;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.beta = beta;
+        this.refresher = refresher;
+        String name = redis.getName();
+        this.localHits = meterRegistry.counter("publisher.cache.requests", "cache", name, "tier", "l1", "result", "hit");
+        this.localMisses = meterRegistry.counter("publisher.cache.requests", "cache", name, "tier", "l1", "result", "miss");
+        this.redisHits = meterRegistry.counter("publisher.cache.requests", "cache", name, "tier", "l2", "result", "hit");
+        this.redisMisses = meterRegistry.counter("publisher.cache.requests", "cache", name, "tier", "l2", "result", "miss");
+        this.missLoads = meterRegistry.counter("publisher.cache.loads", "cache", name, "type", "miss");
+        this.refreshLoads = meterRegistry.counter("publisher.cache.loads", "cache", name, "type", "refresh");
+        this.coalescedLoads = meterRegistry.counter("publisher.cache.loads", "cache", name, "type", "coalesced");
+        this.staleServed = meterRegistry.counter("publisher.cache.stale", "cache", name);
+    }
+
+    @Override
+    public String getName() {
+        return redis.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redis.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        StampedValue stamped = lookup(key, localKey(key));
+        if (stamped == null || stamped.isExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        return new SimpleValueWrapper(stamped.value());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        StampedValue stamped = lookup(key, localKey);
+        if (isUsable(stamped)) {
+            if (needsRefresh(stamped)) {
+                refresh(key, localKey, valueLoader);
+            }
+            return (T) stamped.value();
+        }
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = loads.putIfAbsent(localKey, load);
+        if (running != null) {
+            coalescedLoads.increment();
+            return (T) await(running);
+        }
+        try {
+            // загрузка, завершившаяся между чтением и регистрацией, уже заполнила L1
+            StampedValue loaded = local.getIfPresent(localKey);
+            Object value;
+            if (isUsable(loaded)) {
+                value = loaded.value();
+            } else {
+                missLoads.increment();
+                value = compute(key, localKey, valueLoader);
+            }
+            load.complete(value);
+            return (T) value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(localKey, load);
+        }
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        return lookupAsync(key, localKey(key)).thenApply(stamped ->
+                stamped == null || stamped.isExpired(System.currentTimeMillis())
+                        ? null
+                        : new SimpleValueWrapper(stamped.value()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        String localKey = localKey(key);
+        return lookupAsync(key, localKey).thenCompose(stamped -> {
+            if (isUsable(stamped)) {
+                if (needsRefresh(stamped)) {
+                    loadAsync(key, localKey, valueLoader, true);
+                }
+                return CompletableFuture.completedFuture((T) stamped.value());
+            }
+            return (CompletableFuture<T>) loadAsync(key, localKey, valueLoader, false);
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        store(key, localKey(key), value, 0);
+        invalidations.publish(getName(), localKey(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        redis.evict(key);
+        local.invalidate(localKey(key));
+        invalidations.publish(getName(), localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        redis.clear();
+        local.invalidateAll();
+        invalidations.publish(getName(), null);
+    }
+
+    /**
+     * Сообщение от другого экземпляра: удалить ключ (или всё при key == null) только из L1.
+     */
+    void invalidateLocal(String key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    private StampedValue lookup(Object key, String localKey) {
+        StampedValue cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            localHits.increment();
+            return cached;
+        }
+        localMisses.increment();
+        ValueWrapper wrapper = redis.get(key);
+        if (wrapper == null) {
+            redisMisses.increment();
+            return null;
+        }
+        redisHits.increment();
+        StampedValue stamped = stamped(wrapper.get());
+        local.put(localKey, stamped);
+        return stamped;
+    }
+
+    private CompletableFuture<StampedValue> lookupAsync(Object key, String localKey) {
+        StampedValue cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            localHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        localMisses.increment();
+        CompletableFuture<?> remote = redis.retrieve(key);
+        if (remote == null) {
+            redisMisses.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        return remote.thenApply(found -> {
+            if (found == null) {
+                redisMisses.increment();
+                return null;
+            }
+            redisHits.increment();
+            StampedValue stamped = stamped(found instanceof ValueWrapper wrapper ? wrapper.get() : found);
+            local.put(localKey, stamped);
+            return stamped;
+        });
+    }
+
+    private static boolean isUsable(StampedValue stamped) {
+        return stamped != null && (stamped.value() != null || !stamped.isExpired(System.currentTimeMillis()));
+    }
+
+    private boolean needsRefresh(StampedValue stamped) {
+        if (stamped.value() == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (stamped.isExpired(now)) {
+            staleServed.increment();
+            return true;
+        }
+        return stamped.shouldRefreshEarly(now, beta, 1.0 - ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * Фоновое обновление: запускается, только если по ключу ещё не идёт загрузка.
+     */
+    private void refresh(Object key, String localKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        if (loads.putIfAbsent(localKey, load) != null) {
+            return;
+        }
+        refreshLoads.increment();
+        try {
+            refresher.execute(() -> {
+                try {
+                    load.complete(compute(key, localKey, valueLoader));
+                } catch (RuntimeException e) {
+                    log.warn("Failed to refresh cache {} key {}", getName(), key, e);
+                    load.completeExceptionally(e);
+                } finally {
+                    loads.remove(localKey, load);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loads.remove(localKey, load);
+            load.cancel(false);
+        }
+    }
+
+    private Object compute(Object key, String localKey, Callable<?> valueLoader) {
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        store(key, localKey, value, (System.nanoTime() - start) / 1_000_000);
+        return value;
+    }
+
+    private CompletableFuture<Object> loadAsync(Object key, String localKey,
+                                                Supplier<? extends CompletableFuture<?>> valueLoader,
+                                                boolean refresh) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = loads.putIfAbsent(localKey, load);
+        if (running != null) {
+            if (!refresh) {
+                coalescedLoads.increment();
+            }
+            return running;
+        }
+        (refresh ? refreshLoads : missLoads).increment();
+        long start = System.nanoTime();
+        CompletableFuture<?> source;
+        try {
+            source = valueLoader.get();
+        } catch (RuntimeException e) {
+            source = CompletableFuture.failedFuture(e);
+        }
+        source.whenComplete((value, ex) -> {
+            try {
+                if (ex == null) {
+                    store(key, localKey, value, (System.nanoTime() - start) / 1_000_000);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to store cache {} key {}", getName(), key, e);
+            } finally {
+                loads.remove(localKey, load);
+            }
+            if (ex != null) {
+                load.completeExceptionally(ex);
+            } else {
+                load.complete(value);
+            }
+        });
+        return load;
+    }
+
+    private void store(Object key, String localKey, Object value, long computeMillis) {
+        long now = System.currentTimeMillis();
+        long expiresAt = value == null ? now + negativeTtlMillis
+                : ttlMillis > 0 ? now + ttlMillis : Long.MAX_VALUE;
+        StampedValue stamped = new StampedValue(value, expiresAt, computeMillis);
+        redis.put(key, stamped);
+        local.put(localKey, stamped);
+    }
+
+    private static Object await(CompletableFuture<Object> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Записи, сохранённые до появления срока годности, считаются свежими до своего TTL в Redis.
+     */
+    private static StampedValue stamped(Object value) {
+        return value instanceof StampedValue stamped ? stamped : new StampedValue(value, Long.MAX_VALUE, 0);
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,95 @@
+package com.publisher.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Оборачивает каждый кэш Redis в {@link TwoTierCache} и принимает сообщения об инвалидации L1.
+ * Фоновые обновления значений всех кэшей выполняются на виртуальных потоках.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener, DisposableBean {
+    private final CacheManager redisCacheManager;
+    private final CacheInvalidationPublisher invalidations;
+    private final MeterRegistry meterRegistry;
+    private final long localMaxSize;
+    private final Duration localTtl;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final double earlyRefreshBeta;
+    private final ExecutorService refresher = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager redisCacheManager,
+                               CacheInvalidationPublisher invalidations,
+                               MeterRegistry meterRegistry,
+                               long localMaxSize,
+                               Duration localTtl,
+                               Duration ttl,
+                               Duration negativeTtl,
+                               double earlyRefreshBeta) {
+        this.redisCacheManager = redisCacheManager;
+        this.invalidations = invalidations;
+        this.meterRegistry = meterRegistry;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length < 2 || parts[0].equals(invalidations.getInstanceId())) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.invalidateLocal(parts.length == 3 ? parts[2] : null);
+        }
+    }
+
+    private TwoTierCache createCache(String name) {
+        Cache redis = redisCacheManager.getCache(name);
+        com.github.benmanes.caffeine.cache.Cache<String, StampedValue> local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "l1." + name);
+        return new TwoTierCache(redis, local, invalidations, meterRegistry,
+                ttl.toMillis(), negativeTtl.toMillis(), earlyRefreshBeta, refresher);
+    }
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+}
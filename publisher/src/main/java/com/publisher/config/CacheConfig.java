@@ -0,0 +1,88 @@
+package com.publisher.config;
+
+import com.publisher.cache.CacheInvalidationPublisher;
+import com.publisher.cache.CacheValueCodec;
+import com.publisher.cache.CompactRedisSerializer;
+import com.publisher.cache.ResponseCodecs;
+import com.publisher.cache.StampedValue;
+import com.publisher.cache.TwoTierCacheManager;
+import com.publisher.dto.out.ArticleResponseTo;
+import com.publisher.dto.out.CreatorResponseTo;
+import com.publisher.dto.out.ReactionResponseTo;
+import com.publisher.dto.out.StickerResponseTo;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+
+import java.time.Duration;
+
+/**
+ * Кэши сервисов: L1 в памяти перед Redis, см. {@link com.publisher.cache.TwoTierCache}.
+ * Значения известных кэшей хранятся в Redis компактным двоичным форматом
+ * {@link CompactRedisSerializer}, остальные - JDK-сериализацией по умолчанию.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                            CacheProperties cacheProperties,
+                                            StringRedisTemplate redisTemplate,
+                                            MeterRegistry meterRegistry,
+                                            @Value("${publisher.kafka.instance-id}") String instanceId,
+                                            @Value("${publisher.cache.l1.max-size}") long localMaxSize,
+                                            @Value("${publisher.cache.l1.ttl}") long localTtl,
+                                            @Value("${publisher.cache.compress-threshold}") int compressThreshold,
+                                            @Value("${publisher.cache.stale-while-revalidate}") long staleWhileRevalidate,
+                                            @Value("${publisher.cache.early-refresh-beta}") double earlyRefreshBeta,
+                                            @Value("${publisher.cache.negative-ttl}") long negativeTtlMillis) {
+        // логический срок годности проверяет TwoTierCache, в Redis запись живёт дольше на окно stale-while-revalidate;
+        // закэшированный null (запись не найдена) живёт только negative-ttl
+        Duration ttl = cacheProperties.getRedis().getTimeToLive() != null
+                ? cacheProperties.getRedis().getTimeToLive()
+                : Duration.ZERO;
+        Duration storedTtl = ttl.isZero() ? Duration.ZERO : ttl.plusMillis(staleWhileRevalidate);
+        Duration negativeTtl = Duration.ofMillis(negativeTtlMillis);
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl((key, value) -> value instanceof StampedValue stamped && stamped.value() == null
+                        ? negativeTtl
+                        : storedTtl);
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withCacheConfiguration("articles", compact(defaults, ArticleResponseTo.class, ResponseCodecs.ARTICLE, compressThreshold))
+                .withCacheConfiguration("creators", compact(defaults, CreatorResponseTo.class, ResponseCodecs.CREATOR, compressThreshold))
+                .withCacheConfiguration("stickers", compact(defaults, StickerResponseTo.class, ResponseCodecs.STICKER, compressThreshold))
+                .withCacheConfiguration("reaction", compact(defaults, ReactionResponseTo.class, ResponseCodecs.REACTION, compressThreshold))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        return new TwoTierCacheManager(redisCacheManager,
+                new CacheInvalidationPublisher(redisTemplate, instanceId),
+                meterRegistry, localMaxSize, Duration.ofMillis(localTtl), ttl, negativeTtl, earlyRefreshBeta);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   TwoTierCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(CacheInvalidationPublisher.CHANNEL));
+        return container;
+    }
+
+    private static <T> RedisCacheConfiguration compact(RedisCacheConfiguration defaults, Class<T> type,
+                                                       CacheValueCodec<T> codec, int compressThreshold) {
+        return defaults.serializeValuesWith(SerializationPair.fromSerializer(
+                new CompactRedisSerializer<>(type, codec, compressThreshold)));
+    }
+}
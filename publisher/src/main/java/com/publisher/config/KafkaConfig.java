@@ -1,6 +1,7 @@
 package com.publisher.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
@@ -9,8 +10,16 @@ import org.springframework.kafka.config.TopicBuilder;
 public class KafkaConfig {
 
     @Bean
-    public NewTopic createOutTopic () {
+    public NewTopic createOutTopic (@Value("${publisher.kafka.out-topic-partitions}") int partitions) {
         return TopicBuilder.name("OutTopic")
+                .partitions(partitions)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public NewTopic createReplyTopic(@Value("${publisher.kafka.reply-topic}") String replyTopic) {
+        return TopicBuilder.name(replyTopic)
                 .partitions(3)
                 .replicas(1)
                 .build();
@@ -0,0 +1,17 @@
+package com.publisher.config;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Ответ 404 для отсутствующей сущности. Исключение без стека и без suppressed,
+ * поэтому один экземпляр безопасно бросать из всех потоков: путь 404 ничего не аллоцирует.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class NotFoundException extends RuntimeException {
+    public static final NotFoundException INSTANCE = new NotFoundException();
+
+    private NotFoundException() {
+        super("Entity not found", null, false, false);
+    }
+}
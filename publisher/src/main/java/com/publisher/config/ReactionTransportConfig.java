@@ -0,0 +1,28 @@
+package com.publisher.config;
+
+import com.publisher.transport.HedgedReactionTransport;
+import com.publisher.transport.HttpReactionTransport;
+import com.publisher.transport.KafkaReactionTransport;
+import com.publisher.transport.ReactionTransport;
+import com.publisher.transport.TransportMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+public class ReactionTransportConfig {
+
+    @Bean
+    @Primary
+    public ReactionTransport reactionTransport(@Value("${publisher.reactions.transport}") TransportMode mode,
+                                               KafkaReactionTransport kafka,
+                                               HttpReactionTransport http,
+                                               HedgedReactionTransport hedged) {
+        return switch (mode) {
+            case KAFKA -> kafka;
+            case HTTP -> http;
+            case HEDGED -> hedged;
+        };
+    }
+}
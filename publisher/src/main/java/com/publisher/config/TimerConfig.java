@@ -0,0 +1,23 @@
+package com.publisher.config;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class TimerConfig {
+
+    /**
+     * Общий таймер для таймаутов и отложенных действий по запросам к discussion:
+     * одна нить и одно колесо вместо отдельной задачи планировщика на каждый запрос.
+     */
+    @Bean(destroyMethod = "stop")
+    public HashedWheelTimer requestTimer(@Value("${publisher.replies.timer-tick}") long timerTick) {
+        return new HashedWheelTimer(new DefaultThreadFactory("request-timer", true),
+                timerTick, TimeUnit.MILLISECONDS, 512);
+    }
+}
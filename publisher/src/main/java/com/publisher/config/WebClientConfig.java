@@ -1,13 +1,27 @@
 package com.publisher.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class WebClientConfig {
     @Bean
-    public WebClient discussionWebClient() {
-        return WebClient.create("http://localhost:24130/api/v1.0/reactions");
+    public WebClient discussionWebClient(@Value("${publisher.reactions.http.base-url}") String baseUrl,
+                                         @Value("${publisher.reactions.http.max-connections}") int maxConnections) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("discussion")
+                .maxConnections(maxConnections)
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                .build();
     }
 }
@@ -1,26 +1,63 @@
 package com.publisher.controller;
 
+import com.publisher.config.NotFoundException;
 import com.publisher.dto.in.ArticleRequestTo;
 import com.publisher.dto.out.ArticleResponseTo;
+import com.publisher.dto.out.BulkItemResponseTo;
+import com.publisher.dto.out.ReactionCountResponseTo;
+import com.publisher.kafka.ReactionMessage;
 import com.publisher.service.ArticleService;
+import com.publisher.transport.ReactionTransport;
 import jakarta.validation.Valid;
-import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("api/v1.0/articles")
-@AllArgsConstructor
 public class ArticleController {
     private final ArticleService articleService;
+    private final ReactionTransport reactionTransport;
+    private final int pageSize;
+    private final int maxPageSize;
+    private final int bulkMaxSize;
 
+    public ArticleController(ArticleService articleService,
+                             ReactionTransport reactionTransport,
+                             @Value("${publisher.lists.page-size}") int pageSize,
+                             @Value("${publisher.lists.max-page-size}") int maxPageSize,
+                             @Value("${publisher.bulk.max-size}") int bulkMaxSize) {
+        this.articleService = articleService;
+        this.reactionTransport = reactionTransport;
+        this.pageSize = pageSize;
+        this.maxPageSize = maxPageSize;
+        this.bulkMaxSize = bulkMaxSize;
+    }
+
+    /**
+     * Список и страница отдают ETag по метке страницы: If-None-Match с той же меткой получает 304
+     * после одного агрегирующего запроса, без чтения статей.
+     */
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<ArticleResponseTo> getAll() {
-        return articleService.getArticles();
+    public List<ArticleResponseTo> getAll(@RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) Integer limit,
+                                          WebRequest request) {
+        if (limit != null && limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        boolean all = after == null && limit == null;
+        int pageLimit = all ? Integer.MAX_VALUE : limit != null ? Math.min(limit, maxPageSize) : pageSize;
+        if (request.checkNotModified(ConditionalRequests.etag(articleService.getPageTag(after, pageLimit)))) {
+            return null;
+        }
+        return all ? articleService.getArticles() : articleService.getArticlesAfter(after, pageLimit);
     }
 
     @PostMapping
@@ -54,12 +91,93 @@ public class ArticleController {
 
     }
 
-    @GetMapping("/{id}")
-    public ArticleResponseTo read(@PathVariable Long id) {
+    /**
+     * Пакетные операции: ответ содержит результат каждого элемента в порядке запроса
+     * со статусом, который вернул бы одиночный запрос. Пакет пишется одной транзакцией.
+     */
+    @PostMapping("/bulk")
+    public List<BulkItemResponseTo<ArticleResponseTo>> createAll(@RequestBody List<ArticleRequestTo> requests) {
+        checkBulkSize(requests.size());
         try {
-            return articleService.get(id);
+            return articleService.createArticles(requests);
         } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @PutMapping("/bulk")
+    public List<BulkItemResponseTo<ArticleResponseTo>> updateAll(@RequestBody List<ArticleRequestTo> requests) {
+        checkBulkSize(requests.size());
+        try {
+            return articleService.updateArticles(requests);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/bulk")
+    public List<BulkItemResponseTo<ArticleResponseTo>> deleteAll(@RequestBody List<Long> ids) {
+        checkBulkSize(ids.size());
+        try {
+            return articleService.deleteArticles(ids);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    /**
+     * Условный запрос сверяется с modified из кэша или из базы без чтения content,
+     * безусловный получает ETag и Last-Modified вместе с телом.
+     */
+    @GetMapping("/{id}")
+    public ArticleResponseTo read(@PathVariable Long id, WebRequest request) {
+        ArticleResponseTo found = null;
+        LocalDateTime modified;
+        if (ConditionalRequests.isConditional(request)) {
+            modified = articleService.getModified(id).orElseThrow(() -> NotFoundException.INSTANCE);
+        } else {
+            found = get(id);
+            modified = found.getModified();
+        }
+        if (request.checkNotModified(ConditionalRequests.etag(id, ConditionalRequests.epochMicros(modified)),
+                ConditionalRequests.epochMillis(modified))) {
+            return null;
+        }
+        return found != null ? found : get(id);
+    }
+
+    private ArticleResponseTo get(Long id) {
+        ArticleResponseTo found = articleService.get(id);
+        if (found == null) {
+            throw NotFoundException.INSTANCE;
+        }
+        return found;
+    }
+
+    /**
+     * Число реакций статьи из счётчиков discussion, без чтения самих реакций.
+     */
+    @GetMapping("/{id}/reaction-count")
+    public CompletableFuture<ReactionCountResponseTo> reactionCount(@PathVariable Long id) {
+        ReactionMessage request = ReactionMessage.builder()
+                .method(RequestMethod.GET)
+                .articleId(id)
+                .countOnly(true)
+                .build();
+        return reactionTransport.send(request).handle((reply, ex) -> {
+            if (ex != null) {
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error counting reactions", ex);
+            }
+            if (reply.getStatus() != null && reply.getStatus() >= 400) {
+                throw new ResponseStatusException(HttpStatusCode.valueOf(reply.getStatus()), "Error counting reactions");
+            }
+            return new ReactionCountResponseTo(id, reply.getCount() != null ? reply.getCount() : 0L);
+        });
+    }
+
+    private void checkBulkSize(int size) {
+        if (size > bulkMaxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bulk size must not exceed " + bulkMaxSize);
         }
     }
 }
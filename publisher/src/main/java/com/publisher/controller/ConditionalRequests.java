@@ -0,0 +1,39 @@
+package com.publisher.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Метаданные условного GET: сильный ETag из id и версии/времени изменения записи
+ * и Last-Modified из колонки modified (время сервера в локальной зоне, как его пишет @PreUpdate).
+ */
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    static String etag(Object id, Object version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    static String etag(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    static long epochMicros(LocalDateTime time) {
+        return ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), time);
+    }
+
+    static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
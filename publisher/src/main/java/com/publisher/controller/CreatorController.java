@@ -1,26 +1,54 @@
 package com.publisher.controller;
 
+import com.publisher.config.NotFoundException;
 import com.publisher.dto.in.CreatorRequestTo;
+import com.publisher.dto.out.BulkItemResponseTo;
 import com.publisher.dto.out.CreatorResponseTo;
 import com.publisher.service.CreatorService;
 import jakarta.validation.Valid;
-import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("api/v1.0/creators")
-@AllArgsConstructor
 public class CreatorController {
     private final CreatorService creatorService;
+    private final int pageSize;
+    private final int maxPageSize;
+    private final int bulkMaxSize;
 
+    public CreatorController(CreatorService creatorService,
+                             @Value("${publisher.lists.page-size}") int pageSize,
+                             @Value("${publisher.lists.max-page-size}") int maxPageSize,
+                             @Value("${publisher.bulk.max-size}") int bulkMaxSize) {
+        this.creatorService = creatorService;
+        this.pageSize = pageSize;
+        this.maxPageSize = maxPageSize;
+        this.bulkMaxSize = bulkMaxSize;
+    }
+
+    /**
+     * Список и страница отдают ETag по метке страницы: If-None-Match с той же меткой получает 304
+     * после одного агрегирующего запроса, без чтения авторов.
+     */
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<CreatorResponseTo> getAll() {
-        return creatorService.getCreators();
+    public List<CreatorResponseTo> getAll(@RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) Integer limit,
+                                          WebRequest request) {
+        if (limit != null && limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        boolean all = after == null && limit == null;
+        int pageLimit = all ? Integer.MAX_VALUE : limit != null ? Math.min(limit, maxPageSize) : pageSize;
+        if (request.checkNotModified(ConditionalRequests.etag(creatorService.getPageTag(after, pageLimit)))) {
+            return null;
+        }
+        return all ? creatorService.getCreators() : creatorService.getCreatorsAfter(after, pageLimit);
     }
 
     @PostMapping
@@ -53,12 +81,71 @@ public class CreatorController {
         }
     }
 
-    @GetMapping("/{id}")
-    public CreatorResponseTo read(@PathVariable Long id) {
+    /**
+     * Пакетные операции: ответ содержит результат каждого элемента в порядке запроса
+     * со статусом, который вернул бы одиночный запрос. Пакет пишется одной транзакцией.
+     */
+    @PostMapping("/bulk")
+    public List<BulkItemResponseTo<CreatorResponseTo>> createAll(@RequestBody List<CreatorRequestTo> requests) {
+        checkBulkSize(requests.size());
         try {
-            return creatorService.get(id);
+            return creatorService.createCreators(requests);
         } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @PutMapping("/bulk")
+    public List<BulkItemResponseTo<CreatorResponseTo>> updateAll(@RequestBody List<CreatorRequestTo> requests) {
+        checkBulkSize(requests.size());
+        try {
+            return creatorService.updateCreators(requests);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/bulk")
+    public List<BulkItemResponseTo<CreatorResponseTo>> deleteAll(@RequestBody List<Long> ids) {
+        checkBulkSize(ids.size());
+        try {
+            return creatorService.deleteCreators(ids);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    /**
+     * Условный запрос сверяется с версией из кэша или из базы без чтения записи,
+     * безусловный получает ETag вместе с телом.
+     */
+    @GetMapping("/{id}")
+    public CreatorResponseTo read(@PathVariable Long id, WebRequest request) {
+        CreatorResponseTo found = null;
+        Long version;
+        if (ConditionalRequests.isConditional(request)) {
+            version = creatorService.getVersion(id).orElseThrow(() -> NotFoundException.INSTANCE);
+        } else {
+            found = get(id);
+            version = found.getVersion();
+        }
+        if (version != null && request.checkNotModified(ConditionalRequests.etag(id, version))) {
+            return null;
+        }
+        return found != null ? found : get(id);
+    }
+
+    private CreatorResponseTo get(Long id) {
+        CreatorResponseTo found = creatorService.get(id);
+        if (found == null) {
+            throw NotFoundException.INSTANCE;
+        }
+        return found;
+    }
+
+    private void checkBulkSize(int size) {
+        if (size > bulkMaxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bulk size must not exceed " + bulkMaxSize);
         }
     }
 }
@@ -1,83 +1,182 @@
 package com.publisher.controller;
 
-import com.publisher.service.CommunicationKafkaService;
-import lombok.AllArgsConstructor;
+import com.publisher.dto.ReactionMapper;
+import com.publisher.dto.in.ReactionRequestTo;
+import com.publisher.dto.out.ReactionPageResponseTo;
+import com.publisher.dto.out.ReactionResponseTo;
+import com.publisher.kafka.PendingLimitExceededException;
+import com.publisher.kafka.ReactionMessage;
+import com.publisher.transport.ReactionTransport;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpStatus;
 
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 
 @RestController
 @RequestMapping("api/v1.0/reactions")
-@AllArgsConstructor
 @Slf4j
 public class ReactionController {
-    private final CommunicationKafkaService kafkaService;
-    private static final long KAFKA_RESPONSE_TIMEOUT = 2000;
+    private final ReactionTransport transport;
+    private final ReactionMapper mapper;
+    private final int pageSize;
+    private final int maxPageSize;
 
-    @GetMapping
+    public ReactionController(ReactionTransport transport,
+                              ReactionMapper mapper,
+                              @Value("${publisher.reactions.page-size}") int pageSize,
+                              @Value("${publisher.reactions.max-page-size}") int maxPageSize) {
+        this.transport = transport;
+        this.mapper = mapper;
+        this.pageSize = pageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Без limit возвращается первая страница по page-size записей: вся таблица за один запрос не читается,
+     * следующие страницы - по nextPageToken.
+     */
+    @GetMapping(params = "!articleId")
+    @ResponseStatus(HttpStatus.OK)
+    public CompletableFuture<ReactionPageResponseTo> getPage(@RequestParam(required = false) Integer limit,
+                                                             @RequestParam(required = false) String pageToken) {
+        if (limit != null && limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        return page(limit != null ? Math.min(limit, maxPageSize) : pageSize, pageToken)
+                .thenApply(this::toPage);
+    }
+
+    @GetMapping(params = "articleId")
     @ResponseStatus(HttpStatus.OK)
-    public Object getAll() {
-        try {
-            CompletableFuture<Object> future = kafkaService.send(null, RequestMethod.GET);
-            return future.get(KAFKA_RESPONSE_TIMEOUT, TimeUnit.MILLISECONDS);
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error getting reactions");
+    public CompletableFuture<ReactionPageResponseTo> getByArticle(@RequestParam Long articleId,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  @RequestParam(required = false) String pageToken) {
+        if (limit != null && limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
         }
+        ReactionMessage request = ReactionMessage.builder()
+                .method(RequestMethod.GET)
+                .articleId(articleId)
+                .limit(limit != null ? Math.min(limit, maxPageSize) : pageSize)
+                .pageToken(pageToken)
+                .build();
+        return await(transport.send(request), "Error getting reactions")
+                .thenApply(this::toPage);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ReactionResponseTo> stream() {
+        return Mono.fromFuture(() -> page(pageSize, null))
+                .expand(reply -> reply.getPageToken() != null
+                        ? Mono.fromFuture(() -> page(pageSize, reply.getPageToken()))
+                        : Mono.empty())
+                .flatMapIterable(reply -> mapper.toResponseDtos(reply.getItems()));
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public Object createReaction(@RequestBody Map<String, Object> reactionRequest) {
-        try {
-            CompletableFuture<Object> future = kafkaService.send(reactionRequest, RequestMethod.POST);
-            return future.get(KAFKA_RESPONSE_TIMEOUT, TimeUnit.MILLISECONDS);
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error creating reaction");
-        }
+    public CompletableFuture<ReactionResponseTo> createReaction(@RequestBody ReactionRequestTo reactionRequest) {
+        ReactionMessage request = ReactionMessage.builder()
+                .method(RequestMethod.POST)
+                .articleId(reactionRequest.getArticleId())
+                .content(reactionRequest.getContent())
+                .build();
+        return await(transport.send(request), "Error creating reaction")
+                .thenApply(mapper::toResponseDto);
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @CacheEvict(value = "reaction", key = "#id")
-    public Object delete(@PathVariable Long id) {
-        try {
-            CompletableFuture<Object> future = kafkaService.send(Map.of("id", id), RequestMethod.DELETE);
-            return future.get(KAFKA_RESPONSE_TIMEOUT, TimeUnit.MILLISECONDS);
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reaction not found");
-        }
+    public CompletableFuture<Void> delete(@PathVariable Long id) {
+        ReactionMessage request = ReactionMessage.builder()
+                .method(RequestMethod.DELETE)
+                .id(id)
+                .build();
+        return await(transport.send(request), "Reaction not found")
+                .thenRun(() -> { });
     }
 
     @PutMapping
     @ResponseStatus(HttpStatus.OK)
-    @CachePut(value = "reaction", key = "#reactionRequest.get('id')")
-    public Object update(@RequestBody Map<String, Object> reactionRequest) {
-        try {
-            CompletableFuture<Object> future = kafkaService.send(reactionRequest, RequestMethod.PUT);
-            return future.get(KAFKA_RESPONSE_TIMEOUT, TimeUnit.MILLISECONDS);
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reaction not found");
-        }
+    @CachePut(value = "reaction", key = "#reactionRequest.id")
+    public CompletableFuture<ReactionResponseTo> update(@RequestBody ReactionRequestTo reactionRequest) {
+        ReactionMessage request = ReactionMessage.builder()
+                .method(RequestMethod.PUT)
+                .id(reactionRequest.getId())
+                .articleId(reactionRequest.getArticleId())
+                .content(reactionRequest.getContent())
+                .build();
+        return await(transport.send(request), "Reaction not found")
+                .thenApply(mapper::toResponseDto);
     }
 
     @GetMapping("/{id}")
-    @Cacheable(value = "reaction", key = "#id")
-    public Object read(@PathVariable Long id) {
-        try {
-            CompletableFuture<Object> future = kafkaService.send(Map.of("id", id), RequestMethod.GET);
-            return future.get(KAFKA_RESPONSE_TIMEOUT, TimeUnit.MILLISECONDS);
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reaction not found");
+    @Cacheable(value = "reaction", key = "#id", sync = true)
+    public CompletableFuture<ReactionResponseTo> read(@PathVariable Long id) {
+        ReactionMessage request = ReactionMessage.builder()
+                .method(RequestMethod.GET)
+                .id(id)
+                .build();
+        return await(transport.send(request), "Reaction not found")
+                .thenApply(mapper::toResponseDto);
+    }
+
+    private CompletableFuture<ReactionMessage> page(int limit, String pageToken) {
+        ReactionMessage request = ReactionMessage.builder()
+                .method(RequestMethod.GET)
+                .limit(limit)
+                .pageToken(pageToken)
+                .build();
+        return await(transport.send(request), "Error getting reactions");
+    }
+
+    private ReactionPageResponseTo toPage(ReactionMessage reply) {
+        return new ReactionPageResponseTo(mapper.toResponseDtos(reply.getItems()), reply.getPageToken());
+    }
+
+    /**
+     * Возвращает ответ discussion асинхронно: поток Tomcat освобождается сразу,
+     * а ответ клиенту отправляется, когда future завершится или истечёт таймаут.
+     * Таймаут ожидания задаёт транспорт, код ошибки discussion передаёт в поле status.
+     */
+    private static CompletableFuture<ReactionMessage> await(CompletableFuture<ReactionMessage> future, String errorMessage) {
+        return future.handle((reply, ex) -> {
+            if (ex != null) {
+                throw new ResponseStatusException(errorStatus(ex), errorMessage, ex);
+            }
+            if (reply.getStatus() != null && reply.getStatus() >= 400) {
+                throw new ResponseStatusException(HttpStatusCode.valueOf(reply.getStatus()), errorMessage);
+            }
+            return reply;
+        });
+    }
+
+    /**
+     * Ответ не пришёл - это не "не найдено": 404 бывает только в status ответа discussion.
+     */
+    private static HttpStatus errorStatus(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof TimeoutException) {
+            return HttpStatus.GATEWAY_TIMEOUT;
+        }
+        if (cause instanceof PendingLimitExceededException) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
         }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
     }
 }
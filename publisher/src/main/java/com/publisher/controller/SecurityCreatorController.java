@@ -1,5 +1,6 @@
 package com.publisher.controller;
 
+import com.publisher.config.NotFoundException;
 import com.publisher.dto.in.CreatorRequestTo;
 import com.publisher.dto.out.CreatorResponseTo;
 import com.publisher.service.CreatorService;
@@ -48,10 +49,10 @@ public class SecurityCreatorController {
 
     @GetMapping("/{id}")
     public CreatorResponseTo read(@PathVariable Long id) {
-        try {
-            return creatorService.get(id);
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        CreatorResponseTo found = creatorService.get(id);
+        if (found == null) {
+            throw NotFoundException.INSTANCE;
         }
+        return found;
     }
 }
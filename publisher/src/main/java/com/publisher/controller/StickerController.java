@@ -1,10 +1,12 @@
 package com.publisher.controller;
 
+import com.publisher.config.NotFoundException;
 import com.publisher.dto.in.StickerRequestTo;
+import com.publisher.dto.out.BulkItemResponseTo;
 import com.publisher.dto.out.StickerResponseTo;
 import com.publisher.service.StickerService;
 import jakarta.validation.Valid;
-import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -13,14 +15,33 @@ import java.util.List;
 
 @RestController
 @RequestMapping("api/v1.0/stickers")
-@AllArgsConstructor
 public class StickerController {
     private final StickerService stickerService;
+    private final int pageSize;
+    private final int maxPageSize;
+    private final int bulkMaxSize;
+
+    public StickerController(StickerService stickerService,
+                             @Value("${publisher.lists.page-size}") int pageSize,
+                             @Value("${publisher.lists.max-page-size}") int maxPageSize,
+                             @Value("${publisher.bulk.max-size}") int bulkMaxSize) {
+        this.stickerService = stickerService;
+        this.pageSize = pageSize;
+        this.maxPageSize = maxPageSize;
+        this.bulkMaxSize = bulkMaxSize;
+    }
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public List<StickerResponseTo> getAll() {
-        return stickerService.getStickers();
+    public List<StickerResponseTo> getAll(@RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return stickerService.getStickers();
+        }
+        if (limit != null && limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        return stickerService.getStickersAfter(after, limit != null ? Math.min(limit, maxPageSize) : pageSize);
     }
 
     @PostMapping
@@ -53,12 +74,52 @@ public class StickerController {
         }
     }
 
-    @GetMapping("/{id}")
-    public StickerResponseTo read(@PathVariable Long id) {
+    /**
+     * Пакетные операции: ответ содержит результат каждого элемента в порядке запроса
+     * со статусом, который вернул бы одиночный запрос. Пакет пишется одной транзакцией.
+     */
+    @PostMapping("/bulk")
+    public List<BulkItemResponseTo<StickerResponseTo>> createAll(@RequestBody List<StickerRequestTo> requests) {
+        checkBulkSize(requests.size());
         try {
-            return stickerService.get(id);
+            return stickerService.createStickers(requests);
         } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @PutMapping("/bulk")
+    public List<BulkItemResponseTo<StickerResponseTo>> updateAll(@RequestBody List<StickerRequestTo> requests) {
+        checkBulkSize(requests.size());
+        try {
+            return stickerService.updateStickers(requests);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/bulk")
+    public List<BulkItemResponseTo<StickerResponseTo>> deleteAll(@RequestBody List<Long> ids) {
+        checkBulkSize(ids.size());
+        try {
+            return stickerService.deleteStickers(ids);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public StickerResponseTo read(@PathVariable Long id) {
+        StickerResponseTo found = stickerService.get(id);
+        if (found == null) {
+            throw NotFoundException.INSTANCE;
+        }
+        return found;
+    }
+
+    private void checkBulkSize(int size) {
+        if (size > bulkMaxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bulk size must not exceed " + bulkMaxSize);
         }
     }
 }
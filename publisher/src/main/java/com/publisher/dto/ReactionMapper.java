@@ -0,0 +1,17 @@
+package com.publisher.dto;
+
+import com.publisher.dto.in.ReactionRequestTo;
+import com.publisher.dto.out.ReactionResponseTo;
+import com.publisher.kafka.ReactionMessage;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface ReactionMapper {
+    ReactionResponseTo toResponseDto(ReactionMessage message);
+    List<ReactionResponseTo> toResponseDtos(List<ReactionMessage> messages);
+    ReactionRequestTo toRequestDto(ReactionMessage message);
+    ReactionMessage toMessage(ReactionResponseTo dto);
+}
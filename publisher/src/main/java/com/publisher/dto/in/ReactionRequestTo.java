@@ -0,0 +1,16 @@
+package com.publisher.dto.in;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReactionRequestTo {
+    private Long id;
+    private Long articleId;
+    private String content;
+}
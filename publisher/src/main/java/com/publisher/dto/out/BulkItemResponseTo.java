@@ -0,0 +1,28 @@
+package com.publisher.dto.out;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат одного элемента пакетного запроса: HTTP-статус, который получил бы
+ * одиночный запрос, и тело либо текст ошибки.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResponseTo<T> {
+    private int status;
+    private T result;
+    private String error;
+
+    public static <T> BulkItemResponseTo<T> ok(int status, T result) {
+        return new BulkItemResponseTo<>(status, result, null);
+    }
+
+    public static <T> BulkItemResponseTo<T> error(int status, String error) {
+        return new BulkItemResponseTo<>(status, null, error);
+    }
+}
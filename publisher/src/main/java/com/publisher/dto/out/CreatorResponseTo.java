@@ -1,5 +1,6 @@
 package com.publisher.dto.out;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.publisher.entities.Role;
 import lombok.*;
 
@@ -16,4 +17,6 @@ public class CreatorResponseTo implements Serializable {
     private String firstname;
     private String lastname;
     private String role;
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,15 @@
+package com.publisher.dto.out;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReactionCountResponseTo {
+    private Long articleId;
+    private Long count;
+}
@@ -0,0 +1,17 @@
+package com.publisher.dto.out;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReactionPageResponseTo {
+    private List<ReactionResponseTo> items;
+    private String nextPageToken;
+}
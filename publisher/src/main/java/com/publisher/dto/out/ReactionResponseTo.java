@@ -1,10 +1,9 @@
-package com.discussion.dto;
+package com.publisher.dto.out;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.web.bind.annotation.RequestMethod;
 
 import java.io.Serializable;
 
@@ -12,9 +11,8 @@ import java.io.Serializable;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-public class KafkaMessageDTO {
+public class ReactionResponseTo implements Serializable {
     private Long id;
     private Long articleId;
     private String content;
-    private RequestMethod requestMethod;
 }
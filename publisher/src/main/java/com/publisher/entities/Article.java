@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 public class Article implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tbl_article_id_seq")
+    @SequenceGenerator(name = "tbl_article_id_seq", sequenceName = "tbl_article_id_seq", allocationSize = 50)
     private Long id;
     @ManyToOne
     @JoinColumn(name = "creator_id", nullable = false)
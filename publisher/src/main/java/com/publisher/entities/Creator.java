@@ -16,7 +16,8 @@ import java.io.Serializable;
 @Table(name = "tbl_creator")
 public class Creator implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tbl_creator_id_seq")
+    @SequenceGenerator(name = "tbl_creator_id_seq", sequenceName = "tbl_creator_id_seq", allocationSize = 50)
     private Long id;
     @Column(name = "login", unique = true, nullable = false)
     private String login;
@@ -29,4 +30,7 @@ public class Creator implements Serializable {
     @Column(name = "role")
     @Enumerated(EnumType.STRING)
     private Role role;
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
@@ -16,7 +16,8 @@ import java.io.Serializable;
 @Table(name = "tbl_sticker")
 public class Sticker implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tbl_sticker_id_seq")
+    @SequenceGenerator(name = "tbl_sticker_id_seq", sequenceName = "tbl_sticker_id_seq", allocationSize = 50)
     private Long id;
     @Column(name = "name")
     private String name;
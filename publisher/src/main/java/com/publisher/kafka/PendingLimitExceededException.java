@@ -0,0 +1,12 @@
+package com.publisher.kafka;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PendingLimitExceededException extends RuntimeException {
+
+    public PendingLimitExceededException(String s) {
+        super(s);
+    }
+}
@@ -0,0 +1,100 @@
+package com.publisher.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Таблица ожидающих ответа запросов к discussion.
+ * Размер ограничен: при переполнении запрос отклоняется сразу, а не копится в памяти.
+ * Таймауты обслуживает один общий HashedWheelTimer вместо отдельной задачи на каждый запрос.
+ */
+@Component
+@Slf4j
+public class PendingReplyRegistry {
+
+    private final Map<String, CompletableFuture<ReactionMessage>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final HashedWheelTimer timer;
+    private final int maxInFlight;
+    private final long replyTimeout;
+    private final Counter expired;
+    private final Counter lateReplies;
+    private final Counter rejected;
+
+    public PendingReplyRegistry(MeterRegistry meterRegistry,
+                                HashedWheelTimer timer,
+                                @Value("${publisher.kafka.max-in-flight}") int maxInFlight,
+                                @Value("${publisher.kafka.reply-timeout}") long replyTimeout) {
+        this.maxInFlight = maxInFlight;
+        this.replyTimeout = replyTimeout;
+        this.timer = timer;
+        Gauge.builder("publisher.kafka.pending.in-flight", inFlight, AtomicInteger::get)
+                .register(meterRegistry);
+        this.expired = meterRegistry.counter("publisher.kafka.pending.expired");
+        this.lateReplies = meterRegistry.counter("publisher.kafka.pending.late-replies");
+        this.rejected = meterRegistry.counter("publisher.kafka.pending.rejected");
+    }
+
+    public CompletableFuture<ReactionMessage> register(String correlationId) {
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            throw new PendingLimitExceededException("Too many pending requests to discussion: " + maxInFlight);
+        }
+        CompletableFuture<ReactionMessage> future = new CompletableFuture<>();
+        pending.put(correlationId, future);
+        Timeout timeout = timer.newTimeout(t -> expire(correlationId), replyTimeout, TimeUnit.MILLISECONDS);
+        future.whenComplete((result, ex) -> timeout.cancel());
+        return future;
+    }
+
+    public void complete(String correlationId, ReactionMessage reply) {
+        CompletableFuture<ReactionMessage> future = remove(correlationId);
+        if (future != null) {
+            future.complete(reply);
+        } else {
+            lateReplies.increment();
+            log.warn("Received response for unknown correlationId: {}", correlationId);
+        }
+    }
+
+    public void fail(String correlationId, Throwable ex) {
+        CompletableFuture<ReactionMessage> future = remove(correlationId);
+        if (future != null) {
+            future.completeExceptionally(ex);
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private void expire(String correlationId) {
+        CompletableFuture<ReactionMessage> future = remove(correlationId);
+        if (future != null) {
+            expired.increment();
+            future.completeExceptionally(new TimeoutException("No reply within " + replyTimeout + " ms, correlationId: " + correlationId));
+        }
+    }
+
+    private CompletableFuture<ReactionMessage> remove(String correlationId) {
+        CompletableFuture<ReactionMessage> future = pending.remove(correlationId);
+        if (future != null) {
+            inFlight.decrementAndGet();
+        }
+        return future;
+    }
+}
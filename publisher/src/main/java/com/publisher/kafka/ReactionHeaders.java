@@ -0,0 +1,35 @@
+package com.publisher.kafka;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Служебные заголовки обмена publisher - discussion.
+ * Correlation id и топик ответа передаются в заголовках, а ключ записи
+ * остаётся свободным для маршрутизации по статье или реакции.
+ */
+public final class ReactionHeaders {
+
+    private ReactionHeaders() {
+    }
+
+    public static String correlationId(Headers headers) {
+        return text(headers, KafkaHeaders.CORRELATION_ID);
+    }
+
+    public static String replyTopic(Headers headers) {
+        return text(headers, KafkaHeaders.REPLY_TOPIC);
+    }
+
+    public static void setCorrelationId(Headers headers, String correlationId) {
+        headers.add(KafkaHeaders.CORRELATION_ID, correlationId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.publisher.kafka;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.util.List;
+
+/**
+ * Конверт запроса и ответа между publisher и discussion.
+ * Передаётся по Kafka в бинарном виде, см. {@link ReactionMessageCodec}.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReactionMessage {
+    private String correlationId;
+    private RequestMethod method;
+    private Integer status;
+    private Long id;
+    private Long articleId;
+    private String content;
+    private List<ReactionMessage> items;
+    private Integer limit;
+    private String pageToken;
+    /** Запрос числа реакций статьи articleId вместо самих реакций. */
+    private Boolean countOnly;
+    private Long count;
+}
@@ -0,0 +1,318 @@
+package com.publisher.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Бинарный формат {@link ReactionMessage}.
+ * <p>
+ * Заголовок: магический байт и версия схемы. Далее поля в виде "тег + длина значения (varint) + значение",
+ * отсутствующие (null) поля не пишутся, список завершается тегом {@link #END}.
+ * Числа кодируются varint (zigzag), строки - UTF-8.
+ * Элементы списка ({@link #ITEMS}): число элементов, затем поля каждого элемента тем же способом.
+ * <p>
+ * Неизвестные теги пропускаются по длине, поэтому новое поле можно добавить без смены версии:
+ * старые экземпляры его просто не увидят. Версия меняется, только если меняется смысл
+ * или кодировка существующих полей. Неизвестный код метода читается как null, и discussion
+ * отвечает на такой запрос 405, а не теряет его на десериализации.
+ */
+public final class ReactionMessageCodec {
+
+    static final byte MAGIC = 0x52;
+    static final byte VERSION = 1;
+
+    static final byte END = 0;
+    static final byte CORRELATION_ID = 1;
+    static final byte METHOD = 2;
+    static final byte STATUS = 3;
+    static final byte ID = 4;
+    static final byte ARTICLE_ID = 5;
+    static final byte CONTENT = 6;
+    static final byte ITEMS = 7;
+    static final byte LIMIT = 8;
+    static final byte PAGE_TOKEN = 9;
+    static final byte COUNT_ONLY = 10;
+    static final byte COUNT = 11;
+
+    private ReactionMessageCodec() {
+    }
+
+    public static byte[] encode(ReactionMessage message) {
+        ByteBuffer buffer = ByteBuffer.allocate(2 + sizeOf(message));
+        buffer.put(MAGIC).put(VERSION);
+        writeFields(buffer, message);
+        return buffer.array();
+    }
+
+    public static ReactionMessage decode(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            if (buffer.get() != MAGIC) {
+                throw new SerializationException("Not a reaction message");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new SerializationException("Unsupported reaction message version: " + version);
+            }
+            return readFields(buffer);
+        } catch (RuntimeException e) {
+            if (e instanceof SerializationException) {
+                throw e;
+            }
+            throw new SerializationException("Malformed reaction message", e);
+        }
+    }
+
+    private static int sizeOf(ReactionMessage message) {
+        int size = 1;
+        if (message.getCorrelationId() != null) {
+            size += sizeOfField(utf8Length(message.getCorrelationId()));
+        }
+        if (message.getMethod() != null) {
+            size += sizeOfField(1);
+        }
+        if (message.getStatus() != null) {
+            size += sizeOfField(sizeOfVarLong(message.getStatus()));
+        }
+        if (message.getId() != null) {
+            size += sizeOfField(sizeOfVarLong(message.getId()));
+        }
+        if (message.getArticleId() != null) {
+            size += sizeOfField(sizeOfVarLong(message.getArticleId()));
+        }
+        if (message.getContent() != null) {
+            size += sizeOfField(utf8Length(message.getContent()));
+        }
+        if (message.getItems() != null) {
+            size += sizeOfField(sizeOfItems(message.getItems()));
+        }
+        if (message.getLimit() != null) {
+            size += sizeOfField(sizeOfVarLong(message.getLimit()));
+        }
+        if (message.getPageToken() != null) {
+            size += sizeOfField(utf8Length(message.getPageToken()));
+        }
+        if (message.getCountOnly() != null) {
+            size += sizeOfField(1);
+        }
+        if (message.getCount() != null) {
+            size += sizeOfField(sizeOfVarLong(message.getCount()));
+        }
+        return size;
+    }
+
+    private static int sizeOfField(int valueSize) {
+        return 1 + sizeOfVarLong(valueSize) + valueSize;
+    }
+
+    private static int sizeOfItems(List<ReactionMessage> items) {
+        int size = sizeOfVarLong(items.size());
+        for (ReactionMessage item : items) {
+            size += sizeOf(item);
+        }
+        return size;
+    }
+
+    private static void writeFields(ByteBuffer buffer, ReactionMessage message) {
+        if (message.getCorrelationId() != null) {
+            writeString(buffer, CORRELATION_ID, message.getCorrelationId());
+        }
+        if (message.getMethod() != null) {
+            buffer.put(METHOD);
+            writeVarLong(buffer, 1);
+            buffer.put(methodCode(message.getMethod()));
+        }
+        if (message.getStatus() != null) {
+            writeVarLong(buffer, STATUS, message.getStatus());
+        }
+        if (message.getId() != null) {
+            writeVarLong(buffer, ID, message.getId());
+        }
+        if (message.getArticleId() != null) {
+            writeVarLong(buffer, ARTICLE_ID, message.getArticleId());
+        }
+        if (message.getContent() != null) {
+            writeString(buffer, CONTENT, message.getContent());
+        }
+        if (message.getItems() != null) {
+            buffer.put(ITEMS);
+            writeVarLong(buffer, sizeOfItems(message.getItems()));
+            writeVarLong(buffer, message.getItems().size());
+            for (ReactionMessage item : message.getItems()) {
+                writeFields(buffer, item);
+            }
+        }
+        if (message.getLimit() != null) {
+            writeVarLong(buffer, LIMIT, message.getLimit());
+        }
+        if (message.getPageToken() != null) {
+            writeString(buffer, PAGE_TOKEN, message.getPageToken());
+        }
+        if (message.getCountOnly() != null) {
+            buffer.put(COUNT_ONLY);
+            writeVarLong(buffer, 1);
+            buffer.put((byte) (message.getCountOnly() ? 1 : 0));
+        }
+        if (message.getCount() != null) {
+            writeVarLong(buffer, COUNT, message.getCount());
+        }
+        buffer.put(END);
+    }
+
+    private static ReactionMessage readFields(ByteBuffer buffer) {
+        ReactionMessage message = new ReactionMessage();
+        byte tag;
+        while ((tag = buffer.get()) != END) {
+            int length = (int) readVarLong(buffer);
+            if (length < 0 || length > buffer.remaining()) {
+                throw new SerializationException("Reaction message field " + tag + " is truncated");
+            }
+            int end = buffer.position() + length;
+            switch (tag) {
+                case CORRELATION_ID -> message.setCorrelationId(readString(buffer, length));
+                case METHOD -> message.setMethod(method(buffer.get()));
+                case STATUS -> message.setStatus((int) readVarLong(buffer));
+                case ID -> message.setId(readVarLong(buffer));
+                case ARTICLE_ID -> message.setArticleId(readVarLong(buffer));
+                case CONTENT -> message.setContent(readString(buffer, length));
+                case ITEMS -> {
+                    int count = (int) readVarLong(buffer);
+                    List<ReactionMessage> items = new ArrayList<>(Math.min(count, length));
+                    for (int i = 0; i < count; i++) {
+                        items.add(readFields(buffer));
+                    }
+                    message.setItems(items);
+                }
+                case LIMIT -> message.setLimit((int) readVarLong(buffer));
+                case PAGE_TOKEN -> message.setPageToken(readString(buffer, length));
+                case COUNT_ONLY -> message.setCountOnly(buffer.get() != 0);
+                case COUNT -> message.setCount(readVarLong(buffer));
+                default -> {
+                }
+            }
+            if (buffer.position() > end) {
+                throw new SerializationException("Reaction message field " + tag + " overruns its length");
+            }
+            buffer.position(end);
+        }
+        return message;
+    }
+
+    private static byte methodCode(RequestMethod method) {
+        return switch (method) {
+            case GET -> 1;
+            case POST -> 2;
+            case PUT -> 3;
+            case DELETE -> 4;
+            default -> throw new SerializationException("Unsupported request method: " + method);
+        };
+    }
+
+    private static RequestMethod method(byte code) {
+        return switch (code) {
+            case 1 -> RequestMethod.GET;
+            case 2 -> RequestMethod.POST;
+            case 3 -> RequestMethod.PUT;
+            case 4 -> RequestMethod.DELETE;
+            default -> null;
+        };
+    }
+
+    private static int sizeOfVarLong(long value) {
+        long v = (value << 1) ^ (value >> 63);
+        int size = 1;
+        while ((v & ~0x7FL) != 0) {
+            v >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void writeVarLong(ByteBuffer buffer, long value) {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            buffer.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new SerializationException("Varint is too long");
+            }
+            b = buffer.get();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void writeVarLong(ByteBuffer buffer, byte tag, long value) {
+        buffer.put(tag);
+        writeVarLong(buffer, sizeOfVarLong(value));
+        writeVarLong(buffer, value);
+    }
+
+    private static void writeString(ByteBuffer buffer, byte tag, String value) {
+        buffer.put(tag);
+        writeVarLong(buffer, utf8Length(value));
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (cp >> 18)));
+                buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (cp & 0x3F)));
+            } else {
+                if (Character.isSurrogate(c)) {
+                    c = '\uFFFD';
+                }
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
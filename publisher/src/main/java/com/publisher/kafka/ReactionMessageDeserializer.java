@@ -0,0 +1,11 @@
+package com.publisher.kafka;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+public class ReactionMessageDeserializer implements Deserializer<ReactionMessage> {
+
+    @Override
+    public ReactionMessage deserialize(String topic, byte[] data) {
+        return data == null ? null : ReactionMessageCodec.decode(data);
+    }
+}
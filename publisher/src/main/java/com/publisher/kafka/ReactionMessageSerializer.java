@@ -0,0 +1,11 @@
+package com.publisher.kafka;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+public class ReactionMessageSerializer implements Serializer<ReactionMessage> {
+
+    @Override
+    public byte[] serialize(String topic, ReactionMessage data) {
+        return data == null ? null : ReactionMessageCodec.encode(data);
+    }
+}
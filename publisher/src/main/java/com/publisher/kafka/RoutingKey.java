@@ -0,0 +1,35 @@
+package com.publisher.kafka;
+
+/**
+ * Чем заполняется ключ записи в OutTopic, а значит - в какую партицию попадёт команда.
+ * Команды с одинаковым ключом обрабатываются discussion строго по порядку.
+ * По умолчанию REACTION: изменение, удаление и чтение реакции идут с её id и попадают
+ * в одну партицию. Создание ключуется articleId, но id реакции клиент узнаёт только из ответа,
+ * поэтому последующие команды не могут его обогнать.
+ */
+public enum RoutingKey {
+    /** Случайный ключ (correlation id): равномерно, но без порядка. */
+    CORRELATION,
+    /**
+     * articleId, если он известен, иначе id реакции. DELETE и GET по id несут только id,
+     * поэтому команды одной реакции могут попасть в разные партиции и выполниться не по порядку.
+     */
+    ARTICLE,
+    /** id реакции, если он известен, иначе articleId. */
+    REACTION;
+
+    public String keyFor(ReactionMessage message, String correlationId) {
+        return switch (this) {
+            case CORRELATION -> correlationId;
+            case ARTICLE -> key(message.getArticleId(), message.getId(), correlationId);
+            case REACTION -> key(message.getId(), message.getArticleId(), correlationId);
+        };
+    }
+
+    private static String key(Long first, Long second, String fallback) {
+        if (first != null) {
+            return first.toString();
+        }
+        return second != null ? second.toString() : fallback;
+    }
+}
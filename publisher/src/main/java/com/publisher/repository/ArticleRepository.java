@@ -1,8 +1,33 @@
 package com.publisher.repository;
 
 import com.publisher.entities.Article;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ArticleRepository extends JpaRepository<Article, Long> {
+    List<Article> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    @Query("select a.title from Article a where a.title in :titles")
+    List<String> findTitlesIn(@Param("titles") Collection<String> titles);
+
+    @Query("select a.modified from Article a where a.id = :id")
+    Optional<LocalDateTime> findModifiedById(@Param("id") Long id);
 
+    /**
+     * Метка страницы для ETag: число строк, последний id и последнее изменение в странице.
+     * Вставка, удаление и изменение любой строки страницы меняют метку; content не читается.
+     */
+    @Query(value = """
+            select concat(count(*), '-', coalesce(max(id), 0), '-',
+                          coalesce(cast(extract(epoch from max(modified)) * 1000000 as bigint), 0))
+            from (select id, modified from tbl_article where id > :after order by id limit :limit) page
+            """, nativeQuery = true)
+    String findPageTag(@Param("after") long after, @Param("limit") int limit);
 }
@@ -1,10 +1,31 @@
 package com.publisher.repository;
 
 import com.publisher.entities.Creator;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CreatorRepository extends JpaRepository<Creator, Long> {
+    List<Creator> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
     Optional<Creator> findByLogin(String login);
+
+    @Query("select c.login from Creator c where c.login in :logins")
+    List<String> findLoginsIn(@Param("logins") Collection<String> logins);
+
+    @Query("select c.version from Creator c where c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Метка страницы для ETag: число строк, последний id и сумма версий строк страницы.
+     */
+    @Query(value = """
+            select concat(count(*), '-', coalesce(max(id), 0), '-', coalesce(sum(version), 0))
+            from (select id, version from tbl_creator where id > :after order by id limit :limit) page
+            """, nativeQuery = true)
+    String findPageTag(@Param("after") long after, @Param("limit") int limit);
 }
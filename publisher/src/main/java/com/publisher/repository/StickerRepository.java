@@ -1,7 +1,11 @@
 package com.publisher.repository;
 
 import com.publisher.entities.Sticker;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface StickerRepository extends JpaRepository<Sticker, Long> {
+    List<Sticker> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
 }
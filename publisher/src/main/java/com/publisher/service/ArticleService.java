@@ -3,18 +3,35 @@ package com.publisher.service;
 import com.publisher.dto.ArticleMapper;
 import com.publisher.dto.in.ArticleRequestTo;
 import com.publisher.dto.out.ArticleResponseTo;
+import com.publisher.dto.out.BulkItemResponseTo;
 import com.publisher.entities.Article;
 import com.publisher.entities.Creator;
 import com.publisher.repository.ArticleRepository;
 import com.publisher.repository.CreatorRepository;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Service
@@ -23,8 +40,10 @@ public class ArticleService {
     private final ArticleRepository articleRepository;
     private final CreatorRepository creatorRepository;
     private ArticleMapper mapper;
+    private final CacheManager cacheManager;
+    private final Validator validator;
 
-    @CacheEvict(value = "allArticles", allEntries = true)
+    @CachePut(value = "articles", key = "#result.id")
     public ArticleResponseTo create(ArticleRequestTo articleRequestTo) {
         Creator creator = creatorRepository.findById(articleRequestTo.getCreatorId()).orElseThrow();
         Article article = Article.builder()
@@ -33,13 +52,38 @@ public class ArticleService {
                 .content(articleRequestTo.getContent()).build();
         return mapper.toResponseDto(articleRepository.save(article));
     }
-    @Cacheable(value = "allArticles")
     public List<ArticleResponseTo> getArticles() {
-        return articleRepository.findAll()
+        return articleRepository.findAll(Sort.by("id"))
                 .stream()
                 .map(mapper::toResponseDto)
                 .toList();
     }
+
+    /**
+     * Страница по ключу: записи с id больше after по возрастанию id, чтение идёт по первичному индексу.
+     * Стоимость зависит от размера страницы, а не таблицы, поэтому список не кэшируется.
+     */
+    public List<ArticleResponseTo> getArticlesAfter(Long after, int limit) {
+        return articleRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : 0L, Limit.of(limit))
+                .stream()
+                .map(mapper::toResponseDto)
+                .toList();
+    }
+
+    /**
+     * Время изменения статьи для условного GET: из кэша, а при промахе - запросом одной колонки.
+     */
+    public Optional<LocalDateTime> getModified(Long id) {
+        Cache.ValueWrapper cached = cacheManager.getCache("articles").get(id);
+        if (cached != null && cached.get() instanceof ArticleResponseTo article) {
+            return Optional.of(article.getModified());
+        }
+        return articleRepository.findModifiedById(id);
+    }
+
+    public String getPageTag(Long after, int limit) {
+        return articleRepository.findPageTag(after != null ? after : 0L, limit);
+    }
     @CacheEvict(value = "articles", key = "#id")
     public ArticleResponseTo deleteArticle(Long id) {
         Article article = articleRepository.findById(id).orElseThrow();
@@ -47,15 +91,144 @@ public class ArticleService {
         return mapper.toResponseDto(article);
     }
     @CachePut(value = "articles", key = "#articleRequestTo.id")
-    @CacheEvict(value = "allArticles", allEntries = true)
     public ArticleResponseTo updateArticle(ArticleRequestTo articleRequestTo) {
         Article articleToUpdate = articleRepository.findById(articleRequestTo.getId()).orElseThrow();
         articleToUpdate.setContent(articleRequestTo.getContent());
         articleToUpdate.setTitle(articleRequestTo.getTitle());
-        return mapper.toResponseDto(articleRepository.save(articleToUpdate));
+        // flush до маппинга: @PreUpdate выставляет modified, по нему считается ETag закэшированного ответа
+        return mapper.toResponseDto(articleRepository.saveAndFlush(articleToUpdate));
     }
-    @Cacheable(value = "articles", key = "#id")
+    /**
+     * Отсутствующая запись возвращается как null и тоже кэшируется - на короткий negative-ttl,
+     * чтобы повторные запросы несуществующих id не доходили до базы.
+     */
+    @Cacheable(value = "articles", key = "#id", sync = true)
     public ArticleResponseTo get(Long id) {
-        return mapper.toResponseDto(articleRepository.findById(id).orElseThrow());
+        return articleRepository.findById(id).map(mapper::toResponseDto).orElse(null);
+    }
+
+    /**
+     * Пакетное создание: элементы проверяются по одному, прошедшие пишутся одним flush.
+     * Идентификаторы берутся из пула последовательности, поэтому INSERT-ы уходят JDBC-пачками
+     * по hibernate.jdbc.batch_size. Ошибка базы при flush откатывает весь пакет.
+     */
+    public List<BulkItemResponseTo<ArticleResponseTo>> createArticles(List<ArticleRequestTo> requests) {
+        List<BulkItemResponseTo<ArticleResponseTo>> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        Map<Long, Creator> creators = creatorRepository.findAllById(requests.stream()
+                        .filter(Objects::nonNull)
+                        .map(ArticleRequestTo::getCreatorId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Creator::getId, Function.identity()));
+        Set<String> titles = new HashSet<>(articleRepository.findTitlesIn(requests.stream()
+                .filter(Objects::nonNull)
+                .map(ArticleRequestTo::getTitle)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet())));
+        Map<Integer, Article> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ArticleRequestTo request = requests.get(i);
+            String violations = BulkItems.violations(validator, request);
+            if (violations != null) {
+                results.set(i, BulkItemResponseTo.error(400, violations));
+            } else if (!creators.containsKey(request.getCreatorId())) {
+                results.set(i, BulkItemResponseTo.error(403, "Creator not found"));
+            } else if (!titles.add(request.getTitle())) {
+                results.set(i, BulkItemResponseTo.error(403, "Title is already exist"));
+            } else {
+                accepted.put(i, Article.builder()
+                        .creator(creators.get(request.getCreatorId()))
+                        .title(request.getTitle())
+                        .content(request.getContent()).build());
+            }
+        }
+        articleRepository.saveAll(accepted.values());
+        articleRepository.flush();
+        Map<Long, ArticleResponseTo> cached = new LinkedHashMap<>();
+        accepted.forEach((i, article) -> {
+            ArticleResponseTo response = mapper.toResponseDto(article);
+            cached.put(response.getId(), response);
+            results.set(i, BulkItemResponseTo.ok(201, response));
+        });
+        Cache cache = cacheManager.getCache("articles");
+        BulkItems.afterCommit(() -> cached.forEach(cache::put));
+        return results;
+    }
+
+    /**
+     * Пакетное изменение: все статьи читаются одним запросом, UPDATE-ы уходят JDBC-пачками при flush.
+     * Заголовок, который до пакета был у другой статьи или уже взят предыдущим элементом,
+     * отклоняет только этот элемент, а не весь пакет на flush.
+     */
+    public List<BulkItemResponseTo<ArticleResponseTo>> updateArticles(List<ArticleRequestTo> requests) {
+        List<BulkItemResponseTo<ArticleResponseTo>> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        Map<Long, Article> articles = findAllById(requests.stream()
+                .filter(Objects::nonNull)
+                .map(ArticleRequestTo::getId)
+                .toList());
+        Set<String> taken = new HashSet<>(articleRepository.findTitlesIn(requests.stream()
+                .filter(Objects::nonNull)
+                .map(ArticleRequestTo::getTitle)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet())));
+        Set<String> claimed = new HashSet<>();
+        Map<Integer, Article> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ArticleRequestTo request = requests.get(i);
+            String violations = BulkItems.violations(validator, request);
+            if (violations != null) {
+                results.set(i, BulkItemResponseTo.error(400, violations));
+            } else if (!articles.containsKey(request.getId())) {
+                results.set(i, BulkItemResponseTo.error(404, "Article not found"));
+            } else if (BulkItems.isTakenByOther(taken, articles.get(request.getId()).getTitle(), request.getTitle())
+                    || !claimed.add(request.getTitle())) {
+                results.set(i, BulkItemResponseTo.error(403, "Title is already exist"));
+            } else {
+                Article article = articles.get(request.getId());
+                article.setContent(request.getContent());
+                article.setTitle(request.getTitle());
+                accepted.put(i, article);
+            }
+        }
+        articleRepository.flush();
+        Map<Long, ArticleResponseTo> cached = new LinkedHashMap<>();
+        accepted.forEach((i, article) -> {
+            ArticleResponseTo response = mapper.toResponseDto(article);
+            cached.put(response.getId(), response);
+            results.set(i, BulkItemResponseTo.ok(200, response));
+        });
+        Cache cache = cacheManager.getCache("articles");
+        BulkItems.afterCommit(() -> cached.forEach(cache::put));
+        return results;
+    }
+
+    /**
+     * Пакетное удаление: DELETE-ы уходят JDBC-пачками при flush.
+     */
+    public List<BulkItemResponseTo<ArticleResponseTo>> deleteArticles(List<Long> ids) {
+        List<BulkItemResponseTo<ArticleResponseTo>> results = new ArrayList<>(Collections.nCopies(ids.size(), null));
+        Map<Long, Article> articles = findAllById(ids);
+        Map<Integer, Article> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Article article = articles.remove(ids.get(i));
+            if (article == null) {
+                results.set(i, BulkItemResponseTo.error(404, "Article not found"));
+            } else {
+                accepted.put(i, article);
+            }
+        }
+        articleRepository.deleteAll(accepted.values());
+        articleRepository.flush();
+        accepted.forEach((i, article) -> results.set(i, BulkItemResponseTo.ok(204, mapper.toResponseDto(article))));
+        Cache cache = cacheManager.getCache("articles");
+        BulkItems.afterCommit(() -> accepted.values().forEach(article -> cache.evict(article.getId())));
+        return results;
+    }
+
+    private Map<Long, Article> findAllById(List<Long> ids) {
+        return articleRepository.findAllById(ids.stream().filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Article::getId, Function.identity()));
     }
 }
@@ -0,0 +1,62 @@
+package com.publisher.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Проверка элементов пакетного запроса по одному: ошибка валидации одного элемента
+ * не отклоняет весь пакет, как это сделал бы @Valid на списке.
+ */
+final class BulkItems {
+
+    private BulkItems() {
+    }
+
+    /**
+     * Текст нарушений ограничений элемента или null, если элемент корректен.
+     */
+    static String violations(Validator validator, Object item) {
+        if (item == null) {
+            return "Item is null";
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Значение уникального столбца занято другой записью: оно было в базе до пакета
+     * и не совпадает с текущим значением изменяемой записи.
+     */
+    static boolean isTakenByOther(Set<String> taken, String current, String requested) {
+        return taken.contains(requested) && !requested.equals(current);
+    }
+
+    /**
+     * Выполняет action после фиксации текущей транзакции, а без транзакции - сразу.
+     * Кэш меняется только для записей, которые действительно сохранены: при откате пакета
+     * в кэше не останутся значения, которых нет в базе.
+     */
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
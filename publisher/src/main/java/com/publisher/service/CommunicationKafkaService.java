@@ -1,56 +1,108 @@
 package com.publisher.service;
 
-import lombok.AllArgsConstructor;
+import com.publisher.kafka.PendingReplyRegistry;
+import com.publisher.kafka.ReactionHeaders;
+import com.publisher.kafka.ReactionMessage;
+import com.publisher.kafka.RoutingKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.RequestMethod;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
-@AllArgsConstructor
 public class CommunicationKafkaService {
 
-    private final Map<String, CompletableFuture<Object>> storageResponse = new ConcurrentHashMap<>();
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-
-    @KafkaListener(topics = "InTopic", groupId = "publisher")
-    public void listen(ConsumerRecord<String, Object> request) {
-        String correlationId = request.key();
-        CompletableFuture<Object> future = storageResponse.remove(correlationId);
-        if (future != null) {
-            future.complete(request.value());
-        } else {
-            log.warn("Received response for unknown correlationId: {}", correlationId);
+    private final PendingReplyRegistry pendingReplies;
+    private final KafkaTemplate<String, ReactionMessage> kafkaTemplate;
+    private final byte[] replyTopic;
+    private final RoutingKey routingKey;
+    private final Map<Long, CompletableFuture<ReactionMessage>> inFlightReads = new ConcurrentHashMap<>();
+    private final Counter coalescedReads;
+
+    public CommunicationKafkaService(PendingReplyRegistry pendingReplies,
+                                     KafkaTemplate<String, ReactionMessage> kafkaTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${publisher.kafka.reply-topic}") String replyTopic,
+                                     @Value("${publisher.kafka.routing-key}") RoutingKey routingKey) {
+        this.pendingReplies = pendingReplies;
+        this.kafkaTemplate = kafkaTemplate;
+        this.replyTopic = replyTopic.getBytes(StandardCharsets.UTF_8);
+        this.routingKey = routingKey;
+        this.coalescedReads = meterRegistry.counter("publisher.kafka.reads.coalesced");
+    }
+
+    @KafkaListener(topics = "${publisher.kafka.reply-topic}", groupId = "${publisher.kafka.reply-group}")
+    public void listen(ConsumerRecord<String, ReactionMessage> reply) {
+        String correlationId = ReactionHeaders.correlationId(reply.headers());
+        pendingReplies.complete(correlationId != null ? correlationId : reply.key(), reply.value());
+    }
+
+    public CompletableFuture<ReactionMessage> send(ReactionMessage request) {
+        if (request.getId() == null) {
+            return sendToDiscussion(request);
+        }
+        if (request.getMethod() == RequestMethod.GET) {
+            return read(request);
         }
+        inFlightReads.remove(request.getId());
+        return sendToDiscussion(request);
     }
 
-    public CompletableFuture<Object> send(Map<String, Object> reactionRequest, RequestMethod requestMethod) {
+    /**
+     * Одновременные GET одной и той же реакции делят один запрос в Kafka:
+     * пока ответ не пришёл, новые читатели получают копию уже ожидаемого future.
+     * Запись этой реакции отвязывает последующих читателей от начатого до неё чтения.
+     */
+    private CompletableFuture<ReactionMessage> read(ReactionMessage request) {
+        Long id = request.getId();
+        CompletableFuture<ReactionMessage> shared = new CompletableFuture<>();
+        CompletableFuture<ReactionMessage> existing = inFlightReads.putIfAbsent(id, shared);
+        if (existing != null) {
+            coalescedReads.increment();
+            return existing.copy();
+        }
+        try {
+            sendToDiscussion(request).whenComplete((reply, ex) -> {
+                inFlightReads.remove(id, shared);
+                if (ex != null) {
+                    shared.completeExceptionally(ex);
+                } else {
+                    shared.complete(reply);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlightReads.remove(id, shared);
+            throw e;
+        }
+        return shared.copy();
+    }
+
+    private CompletableFuture<ReactionMessage> sendToDiscussion(ReactionMessage request) {
         String correlationId = UUID.randomUUID().toString();
-        Map<String, Object> requestBody = reactionRequest != null ? new HashMap<>(reactionRequest) : new HashMap<>();
-        log.error("CommunicationKafkaService. Request body: {}, key: {}, request method: {}, host: {}", requestBody, correlationId, requestMethod, 24110);
-        requestBody.put("requestMethod", requestMethod);
-        CompletableFuture<Object> responseFuture = new CompletableFuture<>()
-                .orTimeout(1800, TimeUnit.MILLISECONDS)
-                .exceptionally(ex -> {
-                    storageResponse.remove(correlationId);
-                    return null;
-                });
-        storageResponse.put(correlationId, responseFuture);
-        kafkaTemplate.send("OutTopic", correlationId, requestBody)
+        String key = routingKey.keyFor(request, correlationId);
+        log.error("CommunicationKafkaService. Request body: {}, key: {}, correlationId: {}, host: {}", request, key, correlationId, 24110);
+        CompletableFuture<ReactionMessage> responseFuture = pendingReplies.register(correlationId);
+        ProducerRecord<String, ReactionMessage> record = new ProducerRecord<>("OutTopic", key, request);
+        ReactionHeaders.setCorrelationId(record.headers(), correlationId);
+        record.headers().add(KafkaHeaders.REPLY_TOPIC, replyTopic);
+        kafkaTemplate.send(record)
                 .whenComplete((result, ex) -> {
                     if (ex != null) {
-                        storageResponse.remove(correlationId);
-                        responseFuture.completeExceptionally(ex);
+                        pendingReplies.fail(correlationId, ex);
                         log.error("Failed to send message, correlationId: {}", correlationId, ex);
                     } else {
                         log.info("Message sent successfully, correlationId: {}, {}", correlationId, result);
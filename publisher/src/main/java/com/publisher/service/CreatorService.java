@@ -3,19 +3,35 @@ package com.publisher.service;
 import com.publisher.config.LoginAlreadyExistException;
 import com.publisher.dto.CreatorMapper;
 import com.publisher.dto.in.CreatorRequestTo;
+import com.publisher.dto.out.BulkItemResponseTo;
 import com.publisher.dto.out.CreatorResponseTo;
 import com.publisher.entities.Creator;
 import com.publisher.entities.Role;
 import com.publisher.repository.CreatorRepository;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Transactional
@@ -24,9 +40,10 @@ public class CreatorService {
     private final CreatorRepository creatorRepository;
     private CreatorMapper mapper;
     private final PasswordEncoder passwordEncoder;
+    private final CacheManager cacheManager;
+    private final Validator validator;
 
-
-    @CacheEvict(value = "allCreators", allEntries = true)
+    @CachePut(value = "creators", key = "#result.id")
     public CreatorResponseTo create(CreatorRequestTo creatorRequestTo) {
         if (creatorRepository.findByLogin(creatorRequestTo.getLogin()).isPresent()) {
             throw new LoginAlreadyExistException("Login is already exist!");
@@ -37,13 +54,38 @@ public class CreatorService {
             return mapper.toResponseDto(creatorRepository.save(creator));
         }
     }
-    @Cacheable(value = "allCreators")
     public List<CreatorResponseTo> getCreators() {
-        return creatorRepository.findAll()
+        return creatorRepository.findAll(Sort.by("id"))
                 .stream()
                 .map(mapper::toResponseDto)
                 .toList();
     }
+
+    /**
+     * Страница по ключу: записи с id больше after по возрастанию id, чтение идёт по первичному индексу.
+     * Стоимость зависит от размера страницы, а не таблицы, поэтому список не кэшируется.
+     */
+    public List<CreatorResponseTo> getCreatorsAfter(Long after, int limit) {
+        return creatorRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : 0L, Limit.of(limit))
+                .stream()
+                .map(mapper::toResponseDto)
+                .toList();
+    }
+
+    /**
+     * Версия автора для условного GET: из кэша, а при промахе - запросом одной колонки.
+     */
+    public Optional<Long> getVersion(Long id) {
+        Cache.ValueWrapper cached = cacheManager.getCache("creators").get(id);
+        if (cached != null && cached.get() instanceof CreatorResponseTo creator && creator.getVersion() != null) {
+            return Optional.of(creator.getVersion());
+        }
+        return creatorRepository.findVersionById(id);
+    }
+
+    public String getPageTag(Long after, int limit) {
+        return creatorRepository.findPageTag(after != null ? after : 0L, limit);
+    }
     @CacheEvict(value = "creators", key = "#id")
     public CreatorResponseTo deleteCreator(Long id) {
         Creator creator = creatorRepository.findById(id).orElseThrow();
@@ -51,21 +93,154 @@ public class CreatorService {
         return mapper.toResponseDto(creator);
     }
     @CachePut(value = "creators", key = "#creatorRequestTo.id")
-    @CacheEvict(value = "allCreators", allEntries = true)
     public CreatorResponseTo updateCreator(CreatorRequestTo creatorRequestTo) {
         Creator creatorToUpdate = creatorRepository.findById(creatorRequestTo.getId()).orElseThrow();
         creatorToUpdate.setFirstname(creatorRequestTo.getFirstname());
         creatorToUpdate.setLastname(creatorRequestTo.getLastname());
         creatorToUpdate.setLogin(creatorRequestTo.getLogin());
-        creatorToUpdate.setPassword(creatorRequestTo.getPassword());
-        return mapper.toResponseDto(creatorRepository.save(creatorToUpdate));
+        creatorToUpdate.setPassword(passwordEncoder.encode(creatorRequestTo.getPassword()));
+        // flush до маппинга: версия увеличивается при flush, по ней считается ETag закэшированного ответа
+        return mapper.toResponseDto(creatorRepository.saveAndFlush(creatorToUpdate));
     }
-    @Cacheable(value = "creators", key = "#id")
+    /**
+     * Отсутствующая запись возвращается как null и тоже кэшируется - на короткий negative-ttl,
+     * чтобы повторные запросы несуществующих id не доходили до базы.
+     */
+    @Cacheable(value = "creators", key = "#id", sync = true)
     public CreatorResponseTo get(Long id) {
-        return mapper.toResponseDto(creatorRepository.findById(id).orElseThrow());
+        return creatorRepository.findById(id).map(mapper::toResponseDto).orElse(null);
     }
 
     public boolean existsByLogin(String login) {
         return creatorRepository.findByLogin(login).isPresent();
     }
+
+    /**
+     * Пакетное создание: элементы проверяются по одному, прошедшие пишутся одним flush.
+     * Идентификаторы берутся из пула последовательности, поэтому INSERT-ы уходят JDBC-пачками
+     * по hibernate.jdbc.batch_size. Ошибка базы при flush откатывает весь пакет.
+     */
+    public List<BulkItemResponseTo<CreatorResponseTo>> createCreators(List<CreatorRequestTo> requests) {
+        List<BulkItemResponseTo<CreatorResponseTo>> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        Set<String> logins = new HashSet<>(creatorRepository.findLoginsIn(requests.stream()
+                .filter(Objects::nonNull)
+                .map(CreatorRequestTo::getLogin)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet())));
+        Map<Integer, Creator> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreatorRequestTo request = requests.get(i);
+            String violations = BulkItems.violations(validator, request);
+            if (violations != null) {
+                results.set(i, BulkItemResponseTo.error(400, violations));
+            } else if (request.getRole() != null && !isRole(request.getRole())) {
+                results.set(i, BulkItemResponseTo.error(403, "Unknown role " + request.getRole()));
+            } else if (!logins.add(request.getLogin())) {
+                results.set(i, BulkItemResponseTo.error(403, "Login is already exist!"));
+            } else {
+                Creator creator = mapper.toEntity(request);
+                creator.setRole(request.getRole() == null ? Role.CUSTOMER : Role.valueOf(request.getRole()));
+                creator.setPassword(passwordEncoder.encode(request.getPassword()));
+                accepted.put(i, creator);
+            }
+        }
+        creatorRepository.saveAll(accepted.values());
+        creatorRepository.flush();
+        Map<Long, CreatorResponseTo> cached = new LinkedHashMap<>();
+        accepted.forEach((i, creator) -> {
+            CreatorResponseTo response = mapper.toResponseDto(creator);
+            cached.put(response.getId(), response);
+            results.set(i, BulkItemResponseTo.ok(201, response));
+        });
+        Cache cache = cacheManager.getCache("creators");
+        BulkItems.afterCommit(() -> cached.forEach(cache::put));
+        return results;
+    }
+
+    /**
+     * Пакетное изменение: все авторы читаются одним запросом, UPDATE-ы уходят JDBC-пачками при flush.
+     * Логин, который до пакета был у другого автора или уже взят предыдущим элементом,
+     * отклоняет только этот элемент, а не весь пакет на flush.
+     */
+    public List<BulkItemResponseTo<CreatorResponseTo>> updateCreators(List<CreatorRequestTo> requests) {
+        List<BulkItemResponseTo<CreatorResponseTo>> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        Map<Long, Creator> creators = findAllById(requests.stream()
+                .filter(Objects::nonNull)
+                .map(CreatorRequestTo::getId)
+                .toList());
+        Set<String> taken = new HashSet<>(creatorRepository.findLoginsIn(requests.stream()
+                .filter(Objects::nonNull)
+                .map(CreatorRequestTo::getLogin)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet())));
+        Set<String> claimed = new HashSet<>();
+        Map<Integer, Creator> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreatorRequestTo request = requests.get(i);
+            String violations = BulkItems.violations(validator, request);
+            if (violations != null) {
+                results.set(i, BulkItemResponseTo.error(400, violations));
+            } else if (!creators.containsKey(request.getId())) {
+                results.set(i, BulkItemResponseTo.error(404, "Creator not found"));
+            } else if (BulkItems.isTakenByOther(taken, creators.get(request.getId()).getLogin(), request.getLogin())
+                    || !claimed.add(request.getLogin())) {
+                results.set(i, BulkItemResponseTo.error(403, "Login is already exist!"));
+            } else {
+                Creator creator = creators.get(request.getId());
+                creator.setFirstname(request.getFirstname());
+                creator.setLastname(request.getLastname());
+                creator.setLogin(request.getLogin());
+                creator.setPassword(passwordEncoder.encode(request.getPassword()));
+                accepted.put(i, creator);
+            }
+        }
+        creatorRepository.flush();
+        Map<Long, CreatorResponseTo> cached = new LinkedHashMap<>();
+        accepted.forEach((i, creator) -> {
+            CreatorResponseTo response = mapper.toResponseDto(creator);
+            cached.put(response.getId(), response);
+            results.set(i, BulkItemResponseTo.ok(200, response));
+        });
+        Cache cache = cacheManager.getCache("creators");
+        BulkItems.afterCommit(() -> cached.forEach(cache::put));
+        return results;
+    }
+
+    /**
+     * Пакетное удаление: DELETE-ы уходят JDBC-пачками при flush.
+     */
+    public List<BulkItemResponseTo<CreatorResponseTo>> deleteCreators(List<Long> ids) {
+        List<BulkItemResponseTo<CreatorResponseTo>> results = new ArrayList<>(Collections.nCopies(ids.size(), null));
+        Map<Long, Creator> creators = findAllById(ids);
+        Map<Integer, Creator> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Creator creator = creators.remove(ids.get(i));
+            if (creator == null) {
+                results.set(i, BulkItemResponseTo.error(404, "Creator not found"));
+            } else {
+                accepted.put(i, creator);
+            }
+        }
+        creatorRepository.deleteAll(accepted.values());
+        creatorRepository.flush();
+        accepted.forEach((i, creator) -> results.set(i, BulkItemResponseTo.ok(204, mapper.toResponseDto(creator))));
+        Cache cache = cacheManager.getCache("creators");
+        BulkItems.afterCommit(() -> accepted.values().forEach(creator -> cache.evict(creator.getId())));
+        return results;
+    }
+
+    private Map<Long, Creator> findAllById(List<Long> ids) {
+        return creatorRepository.findAllById(ids.stream().filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Creator::getId, Function.identity()));
+    }
+
+    private static boolean isRole(String role) {
+        for (Role value : Role.values()) {
+            if (value.name().equals(role)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
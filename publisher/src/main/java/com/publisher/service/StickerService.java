@@ -2,17 +2,30 @@ package com.publisher.service;
 
 import com.publisher.dto.StickerMapper;
 import com.publisher.dto.in.StickerRequestTo;
+import com.publisher.dto.out.BulkItemResponseTo;
 import com.publisher.dto.out.StickerResponseTo;
 import com.publisher.entities.Sticker;
 import com.publisher.repository.StickerRepository;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Service
@@ -20,16 +33,28 @@ import java.util.List;
 public class StickerService {
     private final StickerRepository stickerRepository;
     private StickerMapper mapper;
+    private final CacheManager cacheManager;
+    private final Validator validator;
 
-    @CacheEvict(value = "allStickers", allEntries = true)
+    @CachePut(value = "stickers", key = "#result.id")
     public StickerResponseTo create(StickerRequestTo stickerRequestTo) {
         Sticker sticker = Sticker.builder()
                 .name(stickerRequestTo.getName()).build();
         return mapper.toResponseDto(stickerRepository.save(sticker));
     }
-    @Cacheable(value = "allStickers")
     public List<StickerResponseTo> getStickers() {
-        return stickerRepository.findAll()
+        return stickerRepository.findAll(Sort.by("id"))
+                .stream()
+                .map(mapper::toResponseDto)
+                .toList();
+    }
+
+    /**
+     * Страница по ключу: записи с id больше after по возрастанию id, чтение идёт по первичному индексу.
+     * Стоимость зависит от размера страницы, а не таблицы, поэтому список не кэшируется.
+     */
+    public List<StickerResponseTo> getStickersAfter(Long after, int limit) {
+        return stickerRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : 0L, Limit.of(limit))
                 .stream()
                 .map(mapper::toResponseDto)
                 .toList();
@@ -41,15 +66,111 @@ public class StickerService {
         return mapper.toResponseDto(sticker);
     }
     @CachePut(value = "stickers", key = "#stickerRequestTo.id")
-    @CacheEvict(value = "allStickers", allEntries = true)
     public StickerResponseTo updateSticker(StickerRequestTo stickerRequestTo) {
         Sticker stickerToUpdate = stickerRepository.findById(stickerRequestTo.getId()).orElseThrow();
         stickerToUpdate.setName(stickerRequestTo.getName());
         return mapper.toResponseDto(stickerRepository.save(stickerToUpdate));
     }
-    @Cacheable(value = "stickers", key = "#id")
+    /**
+     * Отсутствующая запись возвращается как null и тоже кэшируется - на короткий negative-ttl,
+     * чтобы повторные запросы несуществующих id не доходили до базы.
+     */
+    @Cacheable(value = "stickers", key = "#id", sync = true)
     public StickerResponseTo get(Long id) {
-        return mapper.toResponseDto(stickerRepository.findById(id).orElseThrow());
+        return stickerRepository.findById(id).map(mapper::toResponseDto).orElse(null);
+    }
+
+    /**
+     * Пакетное создание: элементы проверяются по одному, прошедшие пишутся одним flush.
+     * Идентификаторы берутся из пула последовательности, поэтому INSERT-ы уходят JDBC-пачками
+     * по hibernate.jdbc.batch_size. Ошибка базы при flush откатывает весь пакет.
+     */
+    public List<BulkItemResponseTo<StickerResponseTo>> createStickers(List<StickerRequestTo> requests) {
+        List<BulkItemResponseTo<StickerResponseTo>> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        Map<Integer, Sticker> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            StickerRequestTo request = requests.get(i);
+            String violations = BulkItems.violations(validator, request);
+            if (violations != null) {
+                results.set(i, BulkItemResponseTo.error(400, violations));
+            } else {
+                accepted.put(i, Sticker.builder().name(request.getName()).build());
+            }
+        }
+        stickerRepository.saveAll(accepted.values());
+        stickerRepository.flush();
+        Map<Long, StickerResponseTo> cached = new LinkedHashMap<>();
+        accepted.forEach((i, sticker) -> {
+            StickerResponseTo response = mapper.toResponseDto(sticker);
+            cached.put(response.getId(), response);
+            results.set(i, BulkItemResponseTo.ok(201, response));
+        });
+        Cache cache = cacheManager.getCache("stickers");
+        BulkItems.afterCommit(() -> cached.forEach(cache::put));
+        return results;
     }
 
+    /**
+     * Пакетное изменение: все стикеры читаются одним запросом, UPDATE-ы уходят JDBC-пачками при flush.
+     */
+    public List<BulkItemResponseTo<StickerResponseTo>> updateStickers(List<StickerRequestTo> requests) {
+        List<BulkItemResponseTo<StickerResponseTo>> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        Map<Long, Sticker> stickers = findAllById(requests.stream()
+                .filter(Objects::nonNull)
+                .map(StickerRequestTo::getId)
+                .toList());
+        Map<Integer, Sticker> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            StickerRequestTo request = requests.get(i);
+            String violations = BulkItems.violations(validator, request);
+            if (violations != null) {
+                results.set(i, BulkItemResponseTo.error(400, violations));
+            } else if (!stickers.containsKey(request.getId())) {
+                results.set(i, BulkItemResponseTo.error(404, "Sticker not found"));
+            } else {
+                Sticker sticker = stickers.get(request.getId());
+                sticker.setName(request.getName());
+                accepted.put(i, sticker);
+            }
+        }
+        stickerRepository.flush();
+        Map<Long, StickerResponseTo> cached = new LinkedHashMap<>();
+        accepted.forEach((i, sticker) -> {
+            StickerResponseTo response = mapper.toResponseDto(sticker);
+            cached.put(response.getId(), response);
+            results.set(i, BulkItemResponseTo.ok(200, response));
+        });
+        Cache cache = cacheManager.getCache("stickers");
+        BulkItems.afterCommit(() -> cached.forEach(cache::put));
+        return results;
+    }
+
+    /**
+     * Пакетное удаление: DELETE-ы уходят JDBC-пачками при flush.
+     */
+    public List<BulkItemResponseTo<StickerResponseTo>> deleteStickers(List<Long> ids) {
+        List<BulkItemResponseTo<StickerResponseTo>> results = new ArrayList<>(Collections.nCopies(ids.size(), null));
+        Map<Long, Sticker> stickers = findAllById(ids);
+        Map<Integer, Sticker> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Sticker sticker = stickers.remove(ids.get(i));
+            if (sticker == null) {
+                results.set(i, BulkItemResponseTo.error(404, "Sticker not found"));
+            } else {
+                accepted.put(i, sticker);
+            }
+        }
+        stickerRepository.deleteAll(accepted.values());
+        stickerRepository.flush();
+        accepted.forEach((i, sticker) -> results.set(i, BulkItemResponseTo.ok(204, mapper.toResponseDto(sticker))));
+        Cache cache = cacheManager.getCache("stickers");
+        BulkItems.afterCommit(() -> accepted.values().forEach(sticker -> cache.evict(sticker.getId())));
+        return results;
+    }
+
+    private Map<Long, Sticker> findAllById(List<Long> ids) {
+        return stickerRepository.findAllById(ids.stream().filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Sticker::getId, Function.identity()));
+    }
 }
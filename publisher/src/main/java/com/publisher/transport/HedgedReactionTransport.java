@@ -0,0 +1,122 @@
+package com.publisher.transport;
+
+import com.publisher.kafka.ReactionMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение через Kafka со страховочным HTTP-запросом: если ответ из Kafka не пришёл
+ * за заданный перцентиль обычной задержки Kafka, тот же GET отправляется по HTTP,
+ * и клиент получает первый успешный ответ.
+ * Изменяющие команды не дублируются и всегда идут через Kafka.
+ */
+@Component
+public class HedgedReactionTransport implements ReactionTransport {
+    public static final String NAME = "hedged";
+
+    private final KafkaReactionTransport kafka;
+    private final HttpReactionTransport http;
+    private final TransportLatency latency;
+    private final HashedWheelTimer timer;
+    private final double percentile;
+    private final long minDelay;
+    private final Counter hedgedRequests;
+
+    public HedgedReactionTransport(KafkaReactionTransport kafka,
+                                   HttpReactionTransport http,
+                                   TransportLatency latency,
+                                   HashedWheelTimer timer,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${publisher.reactions.hedge.percentile}") double percentile,
+                                   @Value("${publisher.reactions.hedge.min-delay}") long minDelay) {
+        this.kafka = kafka;
+        this.http = http;
+        this.latency = latency;
+        this.timer = timer;
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.hedgedRequests = meterRegistry.counter("publisher.reactions.transport.hedged");
+    }
+
+    @Override
+    public CompletableFuture<ReactionMessage> send(ReactionMessage request) {
+        if (request.getMethod() != RequestMethod.GET) {
+            return kafka.send(request);
+        }
+        return latency.record(NAME, request.getMethod(), () -> {
+            long delay = Math.max(minDelay, latency.percentileMillis(KafkaReactionTransport.NAME, RequestMethod.GET, percentile));
+            HedgedCall call = new HedgedCall(request);
+            call.start(delay);
+            return call.result;
+        });
+    }
+
+    private final class HedgedCall {
+        private final ReactionMessage request;
+        private final CompletableFuture<ReactionMessage> result = new CompletableFuture<>();
+        private int running;
+        private boolean hedged;
+        private Timeout hedgeTimeout;
+
+        private HedgedCall(ReactionMessage request) {
+            this.request = request;
+        }
+
+        synchronized void start(long delay) {
+            launch(kafka);
+            if (!result.isDone() && !hedged) {
+                hedgeTimeout = timer.newTimeout(t -> hedge(), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        synchronized void hedge() {
+            if (hedged || result.isDone()) {
+                return;
+            }
+            hedged = true;
+            hedgedRequests.increment();
+            launch(http);
+        }
+
+        private void launch(ReactionTransport transport) {
+            running++;
+            CompletableFuture<ReactionMessage> attempt;
+            try {
+                attempt = transport.send(request);
+            } catch (RuntimeException e) {
+                attempt = CompletableFuture.failedFuture(e);
+            }
+            attempt.whenComplete(this::onReply);
+        }
+
+        synchronized void onReply(ReactionMessage reply, Throwable ex) {
+            running--;
+            if (ex == null) {
+                cancelHedge();
+                result.complete(reply);
+                return;
+            }
+            if (!hedged) {
+                cancelHedge();
+                hedge();
+            }
+            if (running == 0) {
+                result.completeExceptionally(ex);
+            }
+        }
+
+        private void cancelHedge() {
+            if (hedgeTimeout != null) {
+                hedgeTimeout.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.publisher.transport;
+
+import com.publisher.dto.ReactionMapper;
+import com.publisher.dto.out.ReactionCountResponseTo;
+import com.publisher.dto.out.ReactionPageResponseTo;
+import com.publisher.dto.out.ReactionResponseTo;
+import com.publisher.kafka.ReactionMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Прямой вызов REST API discussion через пул соединений WebClient, без Kafka.
+ */
+@Component
+public class HttpReactionTransport implements ReactionTransport {
+    public static final String NAME = "http";
+
+    private final WebClient discussionWebClient;
+    private final ReactionMapper mapper;
+    private final TransportLatency latency;
+    private final Duration timeout;
+
+    public HttpReactionTransport(WebClient discussionWebClient,
+                                 ReactionMapper mapper,
+                                 TransportLatency latency,
+                                 @Value("${publisher.reactions.http.timeout}") long timeout) {
+        this.discussionWebClient = discussionWebClient;
+        this.mapper = mapper;
+        this.latency = latency;
+        this.timeout = Duration.ofMillis(timeout);
+    }
+
+    @Override
+    public CompletableFuture<ReactionMessage> send(ReactionMessage request) {
+        return latency.record(NAME, request.getMethod(), () -> exchange(request).timeout(timeout).toFuture());
+    }
+
+    private Mono<ReactionMessage> exchange(ReactionMessage request) {
+        return switch (request.getMethod()) {
+            case GET -> request.getId() != null
+                    ? discussionWebClient.get().uri("/{id}", request.getId()).exchangeToMono(this::single)
+                    : Boolean.TRUE.equals(request.getCountOnly())
+                    ? discussionWebClient.get().uri(uri -> uri.path("/count").queryParam("articleId", request.getArticleId()).build())
+                    .exchangeToMono(this::count)
+                    : discussionWebClient.get()
+                    .uri(uri -> uri.queryParamIfPresent("articleId", Optional.ofNullable(request.getArticleId()))
+                            .queryParam("limit", request.getLimit())
+                            .queryParamIfPresent("pageToken", Optional.ofNullable(request.getPageToken()))
+                            .build())
+                    .exchangeToMono(this::page);
+            case POST -> discussionWebClient.post().bodyValue(mapper.toRequestDto(request)).exchangeToMono(this::single);
+            case PUT -> discussionWebClient.put().bodyValue(mapper.toRequestDto(request)).exchangeToMono(this::single);
+            case DELETE -> discussionWebClient.delete().uri("/{id}", request.getId()).exchangeToMono(this::single);
+            default -> Mono.error(new IllegalArgumentException("Unsupported request method: " + request.getMethod()));
+        };
+    }
+
+    private Mono<ReactionMessage> single(ClientResponse response) {
+        if (response.statusCode().isError()) {
+            return response.releaseBody().then(Mono.fromSupplier(() -> status(response)));
+        }
+        return response.bodyToMono(ReactionResponseTo.class)
+                .map(body -> {
+                    ReactionMessage reply = mapper.toMessage(body);
+                    reply.setStatus(response.statusCode().value());
+                    return reply;
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> status(response)));
+    }
+
+    private Mono<ReactionMessage> page(ClientResponse response) {
+        if (response.statusCode().isError()) {
+            return response.releaseBody().then(Mono.fromSupplier(() -> status(response)));
+        }
+        return response.bodyToMono(ReactionPageResponseTo.class)
+                .map(body -> {
+                    ReactionMessage reply = status(response);
+                    reply.setItems(body.getItems().stream().map(mapper::toMessage).toList());
+                    reply.setPageToken(body.getNextPageToken());
+                    return reply;
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    ReactionMessage reply = status(response);
+                    reply.setItems(List.of());
+                    return reply;
+                }));
+    }
+
+    private Mono<ReactionMessage> count(ClientResponse response) {
+        if (response.statusCode().isError()) {
+            return response.releaseBody().then(Mono.fromSupplier(() -> status(response)));
+        }
+        return response.bodyToMono(ReactionCountResponseTo.class)
+                .map(body -> {
+                    ReactionMessage reply = status(response);
+                    reply.setArticleId(body.getArticleId());
+                    reply.setCount(body.getCount());
+                    return reply;
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> status(response)));
+    }
+
+    private static ReactionMessage status(ClientResponse response) {
+        return ReactionMessage.builder()
+                .status(response.statusCode().value())
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.publisher.transport;
+
+import com.publisher.kafka.ReactionMessage;
+import com.publisher.service.CommunicationKafkaService;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+@Component
+@AllArgsConstructor
+public class KafkaReactionTransport implements ReactionTransport {
+    public static final String NAME = "kafka";
+
+    private final CommunicationKafkaService kafkaService;
+    private final TransportLatency latency;
+
+    @Override
+    public CompletableFuture<ReactionMessage> send(ReactionMessage request) {
+        return latency.record(NAME, request.getMethod(), () -> kafkaService.send(request));
+    }
+}
@@ -0,0 +1,13 @@
+package com.publisher.transport;
+
+import com.publisher.kafka.ReactionMessage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Способ доставки команды над реакциями в discussion и получения ответа.
+ */
+public interface ReactionTransport {
+
+    CompletableFuture<ReactionMessage> send(ReactionMessage request);
+}
@@ -0,0 +1,59 @@
+package com.publisher.transport;
+
+import com.publisher.kafka.ReactionMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Задержка каждого транспорта по каждой операции (метрика publisher.reactions.transport.latency).
+ */
+@Component
+public class TransportLatency {
+
+    private final MeterRegistry meterRegistry;
+    private final double[] percentiles;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public TransportLatency(MeterRegistry meterRegistry,
+                            @Value("${publisher.reactions.hedge.percentile}") double hedgePercentile) {
+        this.meterRegistry = meterRegistry;
+        this.percentiles = new double[]{0.5, hedgePercentile, 0.99};
+    }
+
+    public CompletableFuture<ReactionMessage> record(String transport, RequestMethod method,
+                                                     Supplier<CompletableFuture<ReactionMessage>> call) {
+        Timer timer = timer(transport, method);
+        long start = System.nanoTime();
+        return call.get().whenComplete((reply, ex) -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Значение перцентиля в миллисекундах или 0, если замеров ещё нет.
+     */
+    public long percentileMillis(String transport, RequestMethod method, double percentile) {
+        for (ValueAtPercentile value : timer(transport, method).takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return (long) value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return 0;
+    }
+
+    private Timer timer(String transport, RequestMethod method) {
+        return timers.computeIfAbsent(transport + ':' + method, key -> Timer.builder("publisher.reactions.transport.latency")
+                .tag("transport", transport)
+                .tag("method", method.name())
+                .publishPercentiles(percentiles)
+                .register(meterRegistry));
+    }
+}
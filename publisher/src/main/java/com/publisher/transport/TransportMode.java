@@ -0,0 +1,7 @@
+package com.publisher.transport;
+
+public enum TransportMode {
+    KAFKA,
+    HTTP,
+    HEDGED
+}
@@ -0,0 +1,69 @@
+package com.publisher.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.util.HashedWheelTimer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PendingReplyRegistryTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+
+    @AfterEach
+    void stopTimer() {
+        timer.stop();
+    }
+
+    @Test
+    void expiresUnansweredRequest() {
+        PendingReplyRegistry registry = new PendingReplyRegistry(meterRegistry, timer, 10, 50);
+        CompletableFuture<ReactionMessage> reply = registry.register("c-1");
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> reply.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        assertEquals(0, registry.inFlight());
+        assertEquals(1.0, meterRegistry.counter("publisher.kafka.pending.expired").count());
+    }
+
+    @Test
+    void countsReplyAfterExpiryAsLate() throws Exception {
+        PendingReplyRegistry registry = new PendingReplyRegistry(meterRegistry, timer, 10, 50);
+        CompletableFuture<ReactionMessage> reply = registry.register("c-1");
+        assertThrows(ExecutionException.class, () -> reply.get(5, TimeUnit.SECONDS));
+
+        registry.complete("c-1", new ReactionMessage());
+
+        assertEquals(1.0, meterRegistry.counter("publisher.kafka.pending.late-replies").count());
+    }
+
+    @Test
+    void completesBeforeTimeout() throws Exception {
+        PendingReplyRegistry registry = new PendingReplyRegistry(meterRegistry, timer, 10, 60_000);
+        CompletableFuture<ReactionMessage> reply = registry.register("c-1");
+        ReactionMessage message = ReactionMessage.builder().status(200).build();
+
+        registry.complete("c-1", message);
+
+        assertSame(message, reply.get(1, TimeUnit.SECONDS));
+        assertEquals(0, registry.inFlight());
+    }
+
+    @Test
+    void rejectsRequestsOverLimit() {
+        PendingReplyRegistry registry = new PendingReplyRegistry(meterRegistry, timer, 1, 60_000);
+        registry.register("c-1");
+
+        assertThrows(PendingLimitExceededException.class, () -> registry.register("c-2"));
+        assertEquals(1, registry.inFlight());
+    }
+}
@@ -0,0 +1,82 @@
+package com.publisher.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReactionMessageCodecTest {
+
+    @Test
+    void roundTripsAllFields() {
+        ReactionMessage message = ReactionMessage.builder()
+                .correlationId("c-1")
+                .method(RequestMethod.PUT)
+                .status(-5)
+                .id(Long.MAX_VALUE)
+                .articleId(Long.MIN_VALUE)
+                .content("привет 😀")
+                .limit(300)
+                .pageToken("token")
+                .countOnly(true)
+                .count(7L)
+                .items(List.of(ReactionMessage.builder().id(1L).content("a").build(), new ReactionMessage()))
+                .build();
+
+        assertEquals(message, ReactionMessageCodec.decode(ReactionMessageCodec.encode(message)));
+    }
+
+    @Test
+    void roundTripsEmptyMessage() {
+        assertEquals(new ReactionMessage(), ReactionMessageCodec.decode(ReactionMessageCodec.encode(new ReactionMessage())));
+    }
+
+    @Test
+    void skipsUnknownFields() {
+        ReactionMessage message = ReactionMessage.builder().id(42L).content("text").build();
+        byte[] encoded = ReactionMessageCodec.encode(message);
+        ByteArrayOutputStream withUnknown = new ByteArrayOutputStream();
+        withUnknown.write(encoded, 0, 2);
+        withUnknown.writeBytes(new byte[]{100, 6, 1, 2, 3});
+        withUnknown.write(encoded, 2, encoded.length - 2);
+
+        assertEquals(message, ReactionMessageCodec.decode(withUnknown.toByteArray()));
+    }
+
+    @Test
+    void decodesUnknownMethodAsNull() {
+        byte[] encoded = ReactionMessageCodec.encode(ReactionMessage.builder().method(RequestMethod.GET).id(3L).build());
+        encoded[4] = 9;
+
+        assertEquals(ReactionMessage.builder().id(3L).build(), ReactionMessageCodec.decode(encoded));
+    }
+
+    @Test
+    void rejectsTruncatedMessage() {
+        byte[] encoded = ReactionMessageCodec.encode(ReactionMessage.builder().content("truncated").build());
+
+        assertThrows(SerializationException.class, () -> ReactionMessageCodec.decode(Arrays.copyOf(encoded, encoded.length - 3)));
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] encoded = ReactionMessageCodec.encode(new ReactionMessage());
+        encoded[1] = 99;
+
+        assertThrows(SerializationException.class, () -> ReactionMessageCodec.decode(encoded));
+    }
+
+    @Test
+    void writesCurrentVersion() {
+        byte[] encoded = ReactionMessageCodec.encode(new ReactionMessage());
+
+        assertArrayEquals(new byte[]{ReactionMessageCodec.MAGIC, ReactionMessageCodec.VERSION, ReactionMessageCodec.END}, encoded);
+    }
+}